@@ -0,0 +1,71 @@
+package study.querydsl.bench;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.QueryDslApplication;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 벤치마크용 스프링 컨텍스트와 H2 데이터 준비.
+ * application.yml 보다 우선하도록 커맨드라인 인자로 설정을 덮어쓴다.
+ */
+final class BenchmarkSupport {
+
+    private static final String[] DEFAULT_ARGS = {
+            "--spring.profiles.active=bench", // InitMember(local) 가 돌지 않게
+            "--spring.datasource.url=jdbc:h2:mem:bench",
+            "--spring.jpa.properties.hibernate.format_sql=false",
+            "--logging.level.org.hibernate.SQL=warn",
+            "--decorator.datasource.p6spy.enable-logging=false"
+    };
+
+    private static final int TEAM_COUNT = 10;
+    private static final int FLUSH_SIZE = 1_000;
+
+    private BenchmarkSupport() {
+    }
+
+    static ConfigurableApplicationContext start(String... args) {
+        List<String> allArgs = new ArrayList<>(Arrays.asList(DEFAULT_ARGS));
+        allArgs.addAll(Arrays.asList(args));
+
+        return new SpringApplicationBuilder(QueryDslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(allArgs.toArray(String[]::new));
+    }
+
+    static void seed(EntityManagerFactory emf, int rows) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+
+            List<Team> teams = new ArrayList<>();
+            for (int i = 0; i < TEAM_COUNT; i++) {
+                Team team = new Team("team" + i);
+                em.persist(team);
+                teams.add(team);
+            }
+
+            for (int i = 0; i < rows; i++) {
+                Team team = em.getReference(Team.class, teams.get(i % TEAM_COUNT).getId());
+                em.persist(new Member("member" + i, i % 100, team));
+                if ((i + 1) % FLUSH_SIZE == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package study.querydsl.bench;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.TeamRepository;
+import study.querydsl.sql.SqlCaptureListener;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * member.getTeam(), team.getMembers() 지연 로딩 전략별 비교.
+ * 한 번의 호출(op)이 새 영속성 컨텍스트에서 연관관계를 전부 읽는다.
+ * 결과의 statements 보조 지표가 op 당 실행된 SQL 수다. (none 이면 1 + 팀 수)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FetchBenchmark {
+
+    @Param({"none", "batch", "subselect"})
+    String fetch;
+
+    @Param({"1000"})
+    int rows;
+
+    ConfigurableApplicationContext context;
+    EntityManager em;
+    TransactionTemplate transactionTemplate;
+    SqlCaptureListener sqlCaptureListener;
+    TeamRepository teamRepository;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Statements {
+
+        public long statements;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            statements = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSupport.start(
+                "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false", // 팀 캐시가 지연 로딩을 가리지 않게
+                "--spring.jpa.properties.hibernate.cache.use_query_cache=false",
+                "--spring.jpa.properties.hibernate.default_batch_fetch_size=" + ("batch".equals(fetch) ? 100 : 1),
+                "--spring.jpa.properties.hibernate.use_subselect_fetch=" + "subselect".equals(fetch));
+        EntityManagerFactory emf = context.getBean(EntityManagerFactory.class);
+        BenchmarkSupport.seed(emf, rows);
+
+        em = SharedEntityManagerCreator.createSharedEntityManager(emf);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        transactionTemplate.setReadOnly(true);
+        sqlCaptureListener = context.getBean(SqlCaptureListener.class);
+        teamRepository = context.getBean(TeamRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int memberTeams(Statements counter) {
+        return inTransaction(counter, em -> {
+            int sum = 0;
+            for (Member member : em.createQuery("select m from Member m", Member.class).getResultList()) {
+                sum += member.getTeam().getName().length();
+            }
+            return sum;
+        });
+    }
+
+    @Benchmark
+    public int teamMembers(Statements counter) {
+        return inTransaction(counter, em -> {
+            int sum = 0;
+            for (Team team : em.createQuery("select t from Team t", Team.class).getResultList()) {
+                sum += team.getMembers().size();
+            }
+            return sum;
+        });
+    }
+
+    @Benchmark
+    public int teamsWithMembers(Statements counter) {
+        return inTransaction(counter, em -> {
+            int sum = 0;
+            for (Team team : teamRepository.findTeamsWithMembers(PageRequest.of(0, 100))) {
+                sum += team.getMembers().size();
+            }
+            return sum;
+        });
+    }
+
+    private int inTransaction(Statements counter, ToIntFunction<EntityManager> work) {
+        int[] result = new int[1];
+        List<String> statements = sqlCaptureListener.capture(() ->
+                result[0] = transactionTemplate.execute(status -> work.applyAsInt(em)));
+        counter.statements += statements.size();
+        return result[0];
+    }
+}
@@ -0,0 +1,25 @@
+package study.querydsl.aggregate;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 팀별 나이 분포. counts[i] 는 나이가 [i * bucketWidth, (i + 1) * bucketWidth) 인 회원 수다.
+ * 음수 나이는 첫 구간에 센다.
+ */
+@Getter
+@ToString
+public class AgeHistogram {
+
+    private final Long teamId;
+    private final String teamName;
+    private final int bucketWidth;
+    private final long[] counts;
+
+    AgeHistogram(Long teamId, String teamName, int bucketWidth, long[] counts) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.bucketWidth = bucketWidth;
+        this.counts = counts;
+    }
+}
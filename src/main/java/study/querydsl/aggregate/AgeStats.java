@@ -0,0 +1,33 @@
+package study.querydsl.aggregate;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * member.age 의 count, sum, avg, max, min. (QueryDslBasicTest.aggregation 과 같은 값)
+ * 팀별 집계면 teamId, teamName 이 채워진다.
+ */
+@Getter
+@ToString
+public class AgeStats {
+
+    private final Long teamId;
+    private final String teamName;
+    private final long count;
+    private final long sum;
+    private final Integer max;
+    private final Integer min;
+
+    AgeStats(Long teamId, String teamName, long count, long sum, Integer max, Integer min) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.count = count;
+        this.sum = sum;
+        this.max = max;
+        this.min = min;
+    }
+
+    public Double getAvg() {
+        return count > 0 ? (double) sum / count : null;
+    }
+}
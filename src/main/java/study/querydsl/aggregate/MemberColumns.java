@@ -0,0 +1,154 @@
+package study.querydsl.aggregate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static study.querydsl.aggregate.TeamDictionary.NO_TEAM;
+
+/**
+ * 회원을 컬럼별 기본형 배열로 저장한다. 같은 행 번호가 같은 회원이다.
+ * 삭제는 마지막 행을 그 자리로 옮겨서 배열에 빈 칸이 생기지 않게 한다.
+ * 동기화는 MemberSnapshot 이 맡는다.
+ */
+final class MemberColumns {
+
+    private final TeamDictionary teams = new TeamDictionary();
+    private final Map<Long, Integer> rowById;
+    private long[] ids;
+    private int[] ages;
+    private int[] teamCodes;
+    private int size;
+
+    MemberColumns(int capacity) {
+        int initial = Math.max(capacity, 16);
+        this.rowById = new HashMap<>(initial * 4 / 3 + 1);
+        this.ids = new long[initial];
+        this.ages = new int[initial];
+        this.teamCodes = new int[initial];
+    }
+
+    TeamDictionary teams() {
+        return teams;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void upsert(long id, int age, int teamCode) {
+        Integer row = rowById.get(id);
+        if (row == null) {
+            if (size == ids.length) {
+                grow();
+            }
+            row = size++;
+            ids[row] = id;
+            rowById.put(id, row);
+        }
+        ages[row] = age;
+        teamCodes[row] = teamCode;
+    }
+
+    void remove(long id) {
+        Integer row = rowById.remove(id);
+        if (row == null) {
+            return;
+        }
+        int last = --size;
+        if (row != last) {
+            ids[row] = ids[last];
+            ages[row] = ages[last];
+            teamCodes[row] = teamCodes[last];
+            rowById.put(ids[row], row);
+        }
+    }
+
+    AgeStats overall() {
+        long sum = 0;
+        int max = Integer.MIN_VALUE;
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            int age = ages[i];
+            sum += age;
+            max = Math.max(max, age);
+            min = Math.min(min, age);
+        }
+        return size > 0
+                ? new AgeStats(null, null, size, sum, max, min)
+                : new AgeStats(null, null, 0, 0, null, null);
+    }
+
+    // 팀이 없는 회원은 빼고 센다. (join(member.team, team) 과 같은 결과) 팀 이름순
+    List<AgeStats> byTeam() {
+        int teamCount = teams.size();
+        long[] counts = new long[teamCount];
+        long[] sums = new long[teamCount];
+        int[] maxes = new int[teamCount];
+        int[] mins = new int[teamCount];
+        Arrays.fill(maxes, Integer.MIN_VALUE);
+        Arrays.fill(mins, Integer.MAX_VALUE);
+
+        for (int i = 0; i < size; i++) {
+            int code = teamCodes[i];
+            if (code == NO_TEAM) {
+                continue;
+            }
+            int age = ages[i];
+            counts[code]++;
+            sums[code] += age;
+            maxes[code] = Math.max(maxes[code], age);
+            mins[code] = Math.min(mins[code], age);
+        }
+
+        List<AgeStats> result = new ArrayList<>();
+        for (int code = 0; code < teamCount; code++) {
+            if (counts[code] > 0) {
+                result.add(new AgeStats(teams.teamId(code), teams.name(code),
+                        counts[code], sums[code], maxes[code], mins[code]));
+            }
+        }
+        result.sort(Comparator.comparing(AgeStats::getTeamName, Comparator.nullsLast(Comparator.naturalOrder())));
+        return result;
+    }
+
+    List<AgeHistogram> histogramByTeam(int bucketWidth) {
+        int maxAge = 0;
+        for (int i = 0; i < size; i++) {
+            maxAge = Math.max(maxAge, ages[i]);
+        }
+        int buckets = maxAge / bucketWidth + 1;
+
+        int teamCount = teams.size();
+        long[][] counts = new long[teamCount][];
+        for (int i = 0; i < size; i++) {
+            int code = teamCodes[i];
+            if (code == NO_TEAM) {
+                continue;
+            }
+            if (counts[code] == null) {
+                counts[code] = new long[buckets];
+            }
+            counts[code][Math.max(ages[i], 0) / bucketWidth]++;
+        }
+
+        List<AgeHistogram> result = new ArrayList<>();
+        for (int code = 0; code < teamCount; code++) {
+            if (counts[code] != null) {
+                result.add(new AgeHistogram(teams.teamId(code), teams.name(code), bucketWidth, counts[code]));
+            }
+        }
+        result.sort(Comparator.comparing(AgeHistogram::getTeamName, Comparator.nullsLast(Comparator.naturalOrder())));
+        return result;
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        ages = Arrays.copyOf(ages, capacity);
+        teamCodes = Arrays.copyOf(teamCodes, capacity);
+    }
+}
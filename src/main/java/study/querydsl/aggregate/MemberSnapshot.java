@@ -0,0 +1,120 @@
+package study.querydsl.aggregate;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import study.querydsl.entity.MemberChangedEvent;
+import study.querydsl.entity.Team;
+import study.querydsl.entity.TeamChangedEvent;
+import study.querydsl.repository.TeamRepository;
+import study.querydsl.support.CommittedView;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static study.querydsl.aggregate.TeamDictionary.NO_TEAM;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 회원 전체를 메모리에 컬럼 형태(MemberColumns)로 들고 있다가 나이 집계를 DB 없이 계산한다.
+ *
+ * <p>처음 조회할 때 한 번 전부 읽고, 이후에는 커밋된 MemberChangedEvent/TeamChangedEvent 로 한 건씩 고친다.
+ * 벌크 연산(BULK)은 무엇이 바뀌었는지 모르므로 버리고 다음 조회 때 다시 읽는다.
+ * 다시 읽는 동안 커밋된 변경을 놓치지 않는 방법은 CommittedView 를 본다.
+ */
+@Component
+public class MemberSnapshot {
+
+    private static final int LOAD_FETCH_SIZE = 1_000;
+
+    private final JPAQueryFactory query;
+    private final TeamRepository teamRepository;
+    private final CommittedView<MemberColumns> columns;
+
+    public MemberSnapshot(JPAQueryFactory query, TeamRepository teamRepository,
+                          PlatformTransactionManager transactionManager) {
+        this.query = query;
+        this.teamRepository = teamRepository;
+        this.columns = new CommittedView<>(transactionManager, this::readAll);
+    }
+
+    public AgeStats overall() {
+        return columns.read(MemberColumns::overall);
+    }
+
+    public List<AgeStats> byTeam() {
+        return columns.read(MemberColumns::byTeam);
+    }
+
+    public List<AgeHistogram> histogramByTeam(int bucketWidth) {
+        if (bucketWidth <= 0) {
+            throw new IllegalArgumentException("bucketWidth 는 1 이상이어야 합니다. bucketWidth=" + bucketWidth);
+        }
+        return columns.read(columns -> columns.histogramByTeam(bucketWidth));
+    }
+
+    public void invalidate() {
+        columns.invalidate();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMemberChanged(MemberChangedEvent event) {
+        if (event.isBulk()) {
+            invalidate();
+            return;
+        }
+
+        Long teamId = event.getTeamId();
+        String teamName = teamId != null && !knownTeam(teamId) ? teamName(teamId) : null;
+        columns.apply(columns -> {
+            if (event.getType() == MemberChangedEvent.Type.REMOVE) {
+                columns.remove(event.getMemberId());
+                return;
+            }
+            int teamCode = teamId == null ? NO_TEAM
+                    : columns.teams().contains(teamId) ? columns.teams().code(teamId)
+                    : columns.teams().put(teamId, teamName);
+            columns.upsert(event.getMemberId(), event.getAge(), teamCode);
+        });
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTeamChanged(TeamChangedEvent event) {
+        columns.apply(columns -> columns.teams().put(event.getTeamId(), event.getName()));
+    }
+
+    private MemberColumns readAll() {
+        MemberColumns loading = new MemberColumns(0);
+        try (Stream<Tuple> rows = query
+                .select(member.id, member.age, team.id, team.name)
+                .from(member)
+                .leftJoin(member.team, team)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, LOAD_FETCH_SIZE)
+                .stream()) {
+            rows.forEach(row -> add(loading, row));
+        }
+        return loading;
+    }
+
+    private static void add(MemberColumns columns, Tuple row) {
+        Long teamId = row.get(team.id);
+        int teamCode = teamId != null ? columns.teams().put(teamId, row.get(team.name)) : NO_TEAM;
+        columns.upsert(row.get(member.id), row.get(member.age), teamCode);
+    }
+
+    // 읽는 중이면 모르는 팀으로 보고 이름을 찾아 둔다. (2차 캐시에 있으면 DB 에 가지 않는다)
+    // 아직 읽지 않았으면 변경이 버려지므로 찾지 않는다
+    private boolean knownTeam(Long teamId) {
+        return columns.isUnloaded() || columns.peek(columns -> columns.teams().contains(teamId), false);
+    }
+
+    // 사전에 없는 팀 (스냅샷을 읽은 뒤 이벤트 없이 생긴 팀)
+    private String teamName(Long teamId) {
+        return teamRepository.findById(teamId).map(Team::getName).orElse(null);
+    }
+}
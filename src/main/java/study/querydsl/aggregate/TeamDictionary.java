@@ -0,0 +1,60 @@
+package study.querydsl.aggregate;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 팀 id 를 0 부터 시작하는 코드로 바꾸는 사전. 회원 컬럼에는 팀 이름 대신 코드(int)만 저장한다.
+ * 코드는 한 번 정해지면 바뀌지 않으므로 코드 크기의 배열로 팀별 집계를 모을 수 있다.
+ */
+final class TeamDictionary {
+
+    static final int NO_TEAM = -1;
+
+    private final Map<Long, Integer> codeByTeamId = new HashMap<>();
+    private long[] teamIds = new long[16];
+    private String[] names = new String[16];
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(Long teamId) {
+        return codeByTeamId.containsKey(teamId);
+    }
+
+    int code(Long teamId) {
+        if (teamId == null) {
+            return NO_TEAM;
+        }
+        Integer code = codeByTeamId.get(teamId);
+        return code != null ? code : NO_TEAM;
+    }
+
+    // 있으면 이름만 바꾼다
+    int put(long teamId, String name) {
+        Integer code = codeByTeamId.get(teamId);
+        if (code != null) {
+            names[code] = name;
+            return code;
+        }
+        if (size == teamIds.length) {
+            teamIds = Arrays.copyOf(teamIds, size * 2);
+            names = Arrays.copyOf(names, size * 2);
+        }
+        teamIds[size] = teamId;
+        names[size] = name;
+        codeByTeamId.put(teamId, size);
+        return size++;
+    }
+
+    long teamId(int code) {
+        return teamIds[code];
+    }
+
+    String name(int code) {
+        return names[code];
+    }
+}
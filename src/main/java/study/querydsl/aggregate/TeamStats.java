@@ -0,0 +1,28 @@
+package study.querydsl.aggregate;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 팀별 회원 수와 평균 나이. groupBy(team.name) 를 매번 돌리는 대신 TeamStatsAggregate 가 유지한다.
+ */
+@Getter
+@ToString
+public class TeamStats {
+
+    private final Long teamId;
+    private final String teamName;
+    private final long memberCount;
+    private final long ageSum;
+
+    TeamStats(Long teamId, String teamName, long memberCount, long ageSum) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.memberCount = memberCount;
+        this.ageSum = ageSum;
+    }
+
+    public Double getAvgAge() {
+        return memberCount > 0 ? (double) ageSum / memberCount : null;
+    }
+}
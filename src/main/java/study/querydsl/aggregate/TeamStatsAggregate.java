@@ -0,0 +1,152 @@
+package study.querydsl.aggregate;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import study.querydsl.entity.MemberChangedEvent;
+import study.querydsl.entity.TeamChangedEvent;
+import study.querydsl.support.CommittedView;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 팀별 회원 수, 나이 합계를 메모리에 유지하는 집계. 조회는 O(팀 수)다.
+ *
+ * <p>회원마다 (teamId, age) 를 들고 있다가 커밋된 MemberChangedEvent 가 오면 그 회원의 예전 값을 빼고 새 값을 더한다.
+ * 저장, 삭제, 나이 변경, changeTeam() 으로 팀을 옮기는 경우가 모두 이 규칙 하나로 처리된다.
+ * 이벤트에는 이전 값이 없고, 회원별 값을 두면 같은 이벤트가 두 번 적용되어도 결과가 같다.
+ * 다시 만드는 동안 커밋된 변경은 CommittedView 가 모아 두었다가 끝나면 적용하는데,
+ * 그 변경이 이미 읽은 데이터에 들어 있을 수 있다. (커밋이 읽기보다 먼저, 이벤트는 나중에 온 경우)
+ * 처음 조회할 때와 벌크 연산(BULK) 뒤에는 전부 다시 읽는다.
+ */
+@Component
+public class TeamStatsAggregate {
+
+    private static final int LOAD_FETCH_SIZE = 1_000;
+
+    private final JPAQueryFactory query;
+    private final CommittedView<Counters> counters;
+
+    public TeamStatsAggregate(JPAQueryFactory query, PlatformTransactionManager transactionManager) {
+        this.query = query;
+        this.counters = new CommittedView<>(transactionManager, this::readAll);
+    }
+
+    public List<TeamStats> stats() {
+        List<TeamStats> result = counters.read(Counters::stats);
+        result.sort(Comparator.comparing(TeamStats::getTeamName, Comparator.nullsLast(Comparator.naturalOrder())));
+        return result;
+    }
+
+    public void invalidate() {
+        counters.invalidate();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMemberChanged(MemberChangedEvent event) {
+        if (event.isBulk()) {
+            invalidate();
+            return;
+        }
+        counters.apply(counters -> {
+            if (event.getType() == MemberChangedEvent.Type.REMOVE) {
+                counters.remove(event.getMemberId());
+            } else {
+                counters.put(event.getMemberId(), event.getTeamId(), event.getAge());
+            }
+        });
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTeamChanged(TeamChangedEvent event) {
+        counters.apply(counters -> {
+            if (event.getType() == TeamChangedEvent.Type.REMOVE) {
+                counters.byTeam.remove(event.getTeamId());
+            } else {
+                counters.counter(event.getTeamId()).name = event.getName();
+            }
+        });
+    }
+
+    // 회원이 없는 팀도 0 명으로 보이도록 팀을 먼저 읽는다
+    private Counters readAll() {
+        Counters loading = new Counters();
+        for (Tuple row : query.select(team.id, team.name).from(team).fetch()) {
+            loading.counter(row.get(team.id)).name = row.get(team.name);
+        }
+        try (Stream<Tuple> rows = query
+                .select(member.id, member.team.id, member.age)
+                .from(member)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, LOAD_FETCH_SIZE)
+                .stream()) {
+            rows.forEach(row -> loading.put(row.get(member.id), row.get(member.team.id), row.get(member.age)));
+        }
+        return loading;
+    }
+
+    private static final class Counters {
+
+        private final Map<Long, Counter> byTeam = new HashMap<>();
+        private final Map<Long, Membership> byMember = new HashMap<>();
+
+        void put(Long memberId, Long teamId, int age) {
+            subtract(byMember.put(memberId, new Membership(teamId, age)));
+            if (teamId != null) {
+                counter(teamId).add(age);
+            }
+        }
+
+        void remove(Long memberId) {
+            subtract(byMember.remove(memberId));
+        }
+
+        private void subtract(Membership previous) {
+            if (previous != null && previous.teamId() != null) {
+                counter(previous.teamId()).subtract(previous.age());
+            }
+        }
+
+        Counter counter(Long teamId) {
+            return byTeam.computeIfAbsent(teamId, id -> new Counter());
+        }
+
+        List<TeamStats> stats() {
+            List<TeamStats> stats = new ArrayList<>(byTeam.size());
+            byTeam.forEach((teamId, counter) ->
+                    stats.add(new TeamStats(teamId, counter.name, counter.count, counter.ageSum)));
+            return stats;
+        }
+    }
+
+    private record Membership(Long teamId, int age) {
+    }
+
+    private static final class Counter {
+
+        private String name;
+        private long count;
+        private long ageSum;
+
+        void add(int age) {
+            count++;
+            ageSum += age;
+        }
+
+        void subtract(int age) {
+            count--;
+            ageSum -= age;
+        }
+    }
+}
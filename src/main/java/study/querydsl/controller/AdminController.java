@@ -0,0 +1,89 @@
+package study.querydsl.controller;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberSearchQueryCache;
+import study.querydsl.repository.MemberSearchResultCache;
+import study.querydsl.sql.QueryPlanExplainer;
+import study.querydsl.sql.SqlStatementAggregator;
+import study.querydsl.sql.SqlStatementStats;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 운영 확인용 엔드포인트 모음.
+ * 캐시 통계, SQL, 실행 계획이 그대로 보이므로 admin.endpoints.enabled=true 일 때만 등록한다. (기본은 꺼짐)
+ */
+@ConditionalOnProperty(name = "admin.endpoints.enabled", havingValue = "true")
+@RestController
+@RequestMapping("/admin")
+@RequiredArgsConstructor
+public class AdminController {
+
+    private final MemberSearchQueryCache searchQueryCache;
+    private final MemberSearchResultCache searchResultCache;
+    private final QueryPlanExplainer queryPlanExplainer;
+    private final EntityManagerFactory emf;
+    private final SqlStatementAggregator sqlStatementAggregator;
+
+    @GetMapping("/search-query-cache")
+    public Map<String, Long> searchQueryCache() {
+        return Map.of(
+                "hits", searchQueryCache.hitCount(),
+                "misses", searchQueryCache.missCount());
+    }
+
+    @GetMapping("/search-result-cache")
+    public Map<String, Object> searchResultCache() {
+        CacheStats stats = searchResultCache.stats();
+        return Map.of(
+                "hits", stats.hitCount(),
+                "misses", stats.missCount(),
+                "hitRate", stats.hitRate(),
+                "evictions", stats.evictionCount());
+    }
+
+    @GetMapping("/explain")
+    public List<String> explain(MemberSearchCondition condition) {
+        return queryPlanExplainer.explainSearch(condition);
+    }
+
+    @GetMapping("/sql/top")
+    public List<SqlStatementStats> topStatements(@RequestParam(defaultValue = "10") int n) {
+        return sqlStatementAggregator.top(n);
+    }
+
+    @GetMapping("/cache/team")
+    public Map<String, Object> teamCache() {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("team", regionStats(statistics.getDomainDataRegionStatistics("team")));
+        // 쿼리 캐시 영역은 처음 사용될 때 만들어진다
+        result.put("team-name-query", regionStats(statistics.getQueryRegionStatistics("team-name-query")));
+        return result;
+    }
+
+    private Map<String, Long> regionStats(CacheRegionStatistics region) {
+        if (region == null) {
+            return Map.of();
+        }
+        return Map.of(
+                "hits", region.getHitCount(),
+                "misses", region.getMissCount(),
+                "puts", region.getPutCount(),
+                "elementsInMemory", region.getElementCountInMemory());
+    }
+}
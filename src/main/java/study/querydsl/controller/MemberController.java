@@ -1,36 +1,122 @@
 package study.querydsl.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import study.querydsl.dto.MemberCursor;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberBatchSearch;
 import study.querydsl.repository.MemberJpaRepository;
 import study.querydsl.repository.MemberRepository;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
+    private static final int STREAM_FLUSH_ROWS = 500;
+
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
+    private final MemberBatchSearch memberBatchSearch;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/v1/members")
     public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
         return memberJpaRepository.search(condition);
     }
 
+    /**
+     * /v1/members 여러 번을 요청 하나로 보낸다. 결과는 요청 본문의 순번(0부터)을 키로 돌려준다.
+     * 팀 이름이나 회원명만 다른 조건은 in 쿼리 하나로 합쳐서 실행한다. (MemberBatchSearch)
+     * 조건이 MemberBatchSearch.MAX_CONDITIONS 개보다 많거나 null 인 조건이 있으면 400.
+     */
+    @PostMapping("/v1/members/batch")
+    public Map<Integer, List<MemberTeamDto>> searchMemberBatchV1(@RequestBody List<MemberSearchCondition> conditions) {
+        List<List<MemberTeamDto>> results;
+        try {
+            results = memberBatchSearch.search(conditions); // 조건 수, null 조건은 여기서 검사한다
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+
+        Map<Integer, List<MemberTeamDto>> byIndex = new LinkedHashMap<>();
+        for (int i = 0; i < results.size(); i++) {
+            byIndex.put(i, results.get(i));
+        }
+        return byIndex;
+    }
+
+    /**
+     * /v1/members 와 같은 결과를 한 줄에 한 건씩(NDJSON) 내려준다.
+     * 조회되는 대로 써서 결과 건수와 상관없이 메모리 사용량이 일정하다.
+     */
+    @GetMapping(value = "/v1/members/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody streamMemberV1(MemberSearchCondition condition) {
+        return out -> {
+            ObjectWriter writer = objectMapper.writerFor(MemberTeamDto.class)
+                    .withRootValueSeparator("\n")
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+
+            int[] rows = {0};
+            memberJpaRepository.searchStream(condition, dto -> {
+                try {
+                    writer.writeValue(generator, dto);
+                    if (++rows[0] % STREAM_FLUSH_ROWS == 0) {
+                        generator.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            generator.writeRaw('\n');
+            generator.flush();
+        };
+    }
+
     @GetMapping("/v2/members")
     public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.searchPageSimple(condition, pageable);
+        return memberRepository.searchPageWindow(condition, pageable);
     }
 
     @GetMapping("/v3/members")
-    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.searchPageComplex(condition, pageable);
+    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable,
+                                              @RequestParam(defaultValue = "false") boolean approximate) {
+        if (approximate) {
+            return memberRepository.searchPageApproximate(condition, pageable);
+        }
+        return memberRepository.searchPageParallel(condition, pageable);
+    }
+
+    @GetMapping("/v4/members")
+    public Slice<MemberTeamDto> searchMemberV4(MemberSearchCondition condition, MemberCursor cursor,
+                                               @RequestParam(defaultValue = "20") int size) {
+        // 리포지토리의 IllegalArgumentException 은 예외 변환을 거쳐 InvalidDataAccessApiUsageException 으로 오므로 여기서 먼저 본다
+        if (size <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size 는 1 이상이어야 합니다. size=" + size);
+        }
+        return memberRepository.searchKeyset(condition, cursor, size);
     }
 }
@@ -0,0 +1,82 @@
+package study.querydsl.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.export.MemberExport;
+import study.querydsl.export.MemberExportService;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * /v2/members 를 페이지마다 호출하는 대신 검색 결과 전체를 CSV 파일 하나로 받는다.
+ * POST 로 파일을 만들고 Location 의 주소로 내려받는다.
+ */
+@RestController
+@RequestMapping("/v1/members/export")
+@RequiredArgsConstructor
+public class MemberExportController {
+
+    // 톰캣 NIO 커넥터의 sendfile. 파일을 유저 공간으로 읽지 않고 소켓으로 보낸다.
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final MemberExportService exportService;
+
+    @PostMapping
+    public ResponseEntity<MemberExport> export(MemberSearchCondition condition) throws IOException {
+        MemberExport export = exportService.export(condition);
+        return ResponseEntity.created(URI.create("/v1/members/export/" + export.getId())).body(export);
+    }
+
+    @GetMapping("/{id}")
+    public void download(@PathVariable UUID id, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        Path file = exportService.find(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        long size = Files.size(file);
+
+        response.setContentType("text/csv;charset=UTF-8");
+        response.setContentLengthLong(size);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename("members-" + id + ".csv").build().toString());
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, size);
+            return;
+        }
+
+        // sendfile 을 못 쓰면 transferTo 로 보낸다
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, out);
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.aggregate.AgeHistogram;
+import study.querydsl.aggregate.AgeStats;
+import study.querydsl.aggregate.MemberSnapshot;
+
+import java.util.List;
+
+/**
+ * 대시보드용 나이 집계. DB 대신 MemberSnapshot 에서 계산한다.
+ */
+@RestController
+@RequestMapping("/v1/members/stats")
+@RequiredArgsConstructor
+public class MemberStatsController {
+
+    private final MemberSnapshot memberSnapshot;
+
+    @GetMapping
+    public AgeStats overall() {
+        return memberSnapshot.overall();
+    }
+
+    @GetMapping("/teams")
+    public List<AgeStats> byTeam() {
+        return memberSnapshot.byTeam();
+    }
+
+    @GetMapping("/teams/histogram")
+    public List<AgeHistogram> histogram(@RequestParam(defaultValue = "10") int bucketWidth) {
+        return memberSnapshot.histogramByTeam(bucketWidth);
+    }
+}
@@ -0,0 +1,21 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.aggregate.TeamStats;
+import study.querydsl.aggregate.TeamStatsAggregate;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+
+    private final TeamStatsAggregate teamStatsAggregate;
+
+    @GetMapping("/teams/stats")
+    public List<TeamStats> teamStats() {
+        return teamStatsAggregate.stats();
+    }
+}
@@ -0,0 +1,23 @@
+package study.querydsl.dto;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * 전체 건수가 추정치일 수 있는 페이지. 화면에서는 "약 230만 건" 처럼 보여주면 된다.
+ */
+public class ApproximatePage<T> extends PageImpl<T> {
+
+    private final boolean totalApproximate;
+
+    public ApproximatePage(List<T> content, Pageable pageable, long total, boolean totalApproximate) {
+        super(content, pageable, total);
+        this.totalApproximate = totalApproximate;
+    }
+
+    public boolean isTotalApproximate() {
+        return totalApproximate;
+    }
+}
@@ -0,0 +1,26 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+/**
+ * 키셋(seek) 페이징 커서. 이전 페이지 마지막 행의 (age, member_id) 를 담는다.
+ * 둘 중 하나라도 없으면 첫 페이지로 본다.
+ */
+@Data
+public class MemberCursor {
+
+    private Integer lastAge;
+    private Long lastMemberId;
+
+    public MemberCursor() {
+    }
+
+    public MemberCursor(Integer lastAge, Long lastMemberId) {
+        this.lastAge = lastAge;
+        this.lastMemberId = lastMemberId;
+    }
+
+    public boolean isFirstPage() {
+        return lastAge == null || lastMemberId == null;
+    }
+}
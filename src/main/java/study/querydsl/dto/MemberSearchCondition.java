@@ -1,6 +1,12 @@
 package study.querydsl.dto;
 
 import lombok.Data;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+import java.util.Objects;
+
+import static org.springframework.util.StringUtils.hasText;
 
 @Data
 public class MemberSearchCondition {
@@ -10,4 +16,39 @@ public class MemberSearchCondition {
     private String teamName;
     private Integer ageGoe;
     private Integer ageLoe;
+    //회원명 앞부분, 회원명에 포함된 문자열
+    private String usernamePrefix;
+    private String usernameContains;
+    //여러 값 중 하나 (in). 값마다 따로 호출하지 않고 한 번에 찾는다
+    private List<String> usernames;
+    private List<String> teamNames;
+    private List<Long> memberIds;
+
+    /**
+     * 앞뒤 공백을 자르고 공백 문자열을 null 로 맞춘 사본. 목록은 중복을 빼고 정렬하며, 비어 있으면 null 로 맞춘다.
+     * 검색은 이 사본으로 실행하므로 캐시 키로도 쓴다. (결과가 같은 조건은 같은 키가 된다)
+     */
+    public MemberSearchCondition normalized() {
+        MemberSearchCondition normalized = new MemberSearchCondition();
+        normalized.setUsername(hasText(username) ? username.strip() : null);
+        normalized.setTeamName(hasText(teamName) ? teamName.strip() : null);
+        normalized.setAgeGoe(ageGoe);
+        normalized.setAgeLoe(ageLoe);
+        normalized.setUsernamePrefix(hasText(usernamePrefix) ? usernamePrefix.strip() : null);
+        normalized.setUsernameContains(hasText(usernameContains) ? usernameContains.strip() : null);
+        normalized.setUsernames(normalized(usernames));
+        normalized.setTeamNames(normalized(teamNames));
+        normalized.setMemberIds(memberIds == null ? null
+                : nullIfEmpty(memberIds.stream().filter(Objects::nonNull).distinct().sorted().toList()));
+        return normalized;
+    }
+
+    private static List<String> normalized(List<String> values) {
+        return values == null ? null
+                : nullIfEmpty(values.stream().filter(StringUtils::hasText).map(String::strip).distinct().sorted().toList());
+    }
+
+    private static <T> List<T> nullIfEmpty(List<T> values) {
+        return values.isEmpty() ? null : values;
+    }
 }
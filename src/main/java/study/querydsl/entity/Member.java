@@ -11,12 +11,20 @@ import static jakarta.persistence.GenerationType.*;
 import static lombok.AccessLevel.*;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_member_username", columnList = "username"),
+        @Index(name = "idx_member_age_id", columnList = "age, member_id"), // 나이 범위 + 키셋 정렬
+        @Index(name = "idx_member_team_id", columnList = "team_id")
+})
+@EntityListeners(MemberEntityListener.class)
 @Getter
 @NoArgsConstructor(access = PROTECTED)
 @ToString(of = {"id","username","age"})
 public class Member {
 
-    @Id @GeneratedValue(strategy = IDENTITY)
+    // IDENTITY 는 insert 배치가 안 되므로 시퀀스 + pooled 할당
+    @Id @GeneratedValue(strategy = SEQUENCE, generator = "member_seq")
+    @SequenceGenerator(name = "member_seq", sequenceName = "member_seq", allocationSize = 50)
     @Column(name = "member_id")
     private Long id;
 
@@ -47,4 +55,8 @@ public class Member {
         this.team = team;
         team.getMembers().add(this);
     }
+
+    public void changeAge(int age) {
+        this.age = age;
+    }
 }
@@ -0,0 +1,45 @@
+package study.querydsl.entity;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Member 가 저장/수정/삭제되었을 때 발행되는 이벤트.
+ * 벌크 연산처럼 어떤 회원이 바뀌었는지 알 수 없을 때는 {@link Type#BULK} 로 발행한다.
+ */
+@Getter
+@ToString
+public class MemberChangedEvent {
+
+    public enum Type {
+        PERSIST, UPDATE, REMOVE, BULK
+    }
+
+    private final Type type;
+    private final Long memberId;
+    private final String username;
+    private final int age;
+    private final Long teamId;
+
+    private MemberChangedEvent(Type type, Long memberId, String username, int age, Long teamId) {
+        this.type = type;
+        this.memberId = memberId;
+        this.username = username;
+        this.age = age;
+        this.teamId = teamId;
+    }
+
+    public static MemberChangedEvent of(Type type, Member member) {
+        Team team = member.getTeam();
+        return new MemberChangedEvent(type, member.getId(), member.getUsername(), member.getAge(),
+                team != null ? team.getId() : null); // 프록시여도 getId() 는 초기화하지 않는다
+    }
+
+    public static MemberChangedEvent bulk() {
+        return new MemberChangedEvent(Type.BULK, null, null, 0, null);
+    }
+
+    public boolean isBulk() {
+        return type == Type.BULK;
+    }
+}
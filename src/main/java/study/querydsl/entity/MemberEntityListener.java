@@ -0,0 +1,60 @@
+package study.querydsl.entity;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.function.Supplier;
+
+import static study.querydsl.entity.MemberChangedEvent.Type.*;
+
+/**
+ * Member 변경을 {@link MemberChangedEvent} 로 알린다.
+ * 스프링 부트가 Hibernate 에 SpringBeanContainer 를 등록하기 때문에 생성자 주입이 된다.
+ * changeTeam() 같은 변경은 flush 시점의 변경 감지로 @PostUpdate 가 호출된다.
+ */
+@RequiredArgsConstructor
+public class MemberEntityListener {
+
+    private static final ThreadLocal<Boolean> suppressed = ThreadLocal.withInitial(() -> false);
+
+    private final ApplicationEventPublisher publisher;
+
+    /**
+     * action 안에서 (flush 까지 포함해) 이 스레드가 일으킨 회원 변경은 이벤트로 알리지 않는다.
+     * 대량 저장처럼 행마다 이벤트(와 트랜잭션 동기화)가 쌓이면 안 되는 곳에서 쓰고,
+     * 끝나면 호출한 쪽이 {@link MemberChangedEvent#bulk()} 를 한 번 발행한다.
+     */
+    public static <T> T withoutEvents(Supplier<T> action) {
+        boolean previous = suppressed.get();
+        suppressed.set(true);
+        try {
+            return action.get();
+        } finally {
+            suppressed.set(previous);
+        }
+    }
+
+    @PostPersist
+    public void postPersist(Member member) {
+        publish(PERSIST, member);
+    }
+
+    @PostUpdate
+    public void postUpdate(Member member) {
+        publish(UPDATE, member);
+    }
+
+    @PostRemove
+    public void postRemove(Member member) {
+        publish(REMOVE, member);
+    }
+
+    private void publish(MemberChangedEvent.Type type, Member member) {
+        if (!suppressed.get()) {
+            publisher.publishEvent(MemberChangedEvent.of(type, member));
+        }
+    }
+}
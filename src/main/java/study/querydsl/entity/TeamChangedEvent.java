@@ -0,0 +1,26 @@
+package study.querydsl.entity;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Team 이 저장/수정/삭제되었을 때 발행되는 이벤트.
+ */
+@Getter
+@ToString
+public class TeamChangedEvent {
+
+    public enum Type {
+        PERSIST, UPDATE, REMOVE
+    }
+
+    private final Type type;
+    private final Long teamId;
+    private final String name;
+
+    public TeamChangedEvent(Type type, Team team) {
+        this.type = type;
+        this.teamId = team.getId();
+        this.name = team.getName();
+    }
+}
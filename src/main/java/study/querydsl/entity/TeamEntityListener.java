@@ -0,0 +1,33 @@
+package study.querydsl.entity;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import static study.querydsl.entity.TeamChangedEvent.Type.*;
+
+/**
+ * Team 변경을 {@link TeamChangedEvent} 로 알린다. (MemberEntityListener 참고)
+ */
+@RequiredArgsConstructor
+public class TeamEntityListener {
+
+    private final ApplicationEventPublisher publisher;
+
+    @PostPersist
+    public void postPersist(Team team) {
+        publisher.publishEvent(new TeamChangedEvent(PERSIST, team));
+    }
+
+    @PostUpdate
+    public void postUpdate(Team team) {
+        publisher.publishEvent(new TeamChangedEvent(UPDATE, team));
+    }
+
+    @PostRemove
+    public void postRemove(Team team) {
+        publisher.publishEvent(new TeamChangedEvent(REMOVE, team));
+    }
+}
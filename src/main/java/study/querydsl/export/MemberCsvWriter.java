@@ -0,0 +1,153 @@
+package study.querydsl.export;
+
+import study.querydsl.dto.MemberTeamDto;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * MemberTeamDto 를 CSV 한 줄씩 버퍼에 인코딩하고, 버퍼가 차면 채널에 쓴다.
+ * 숫자와 문자열(UTF-8)을 바이트로 직접 넣기 때문에 행마다 String 이나 byte[] 를 만들지 않는다.
+ * 쉼표, 따옴표, 줄바꿈이 들어간 값은 RFC 4180 규칙대로 따옴표로 감싼다.
+ */
+final class MemberCsvWriter implements Closeable {
+
+    static final String HEADER = "member_id,username,age,team_id,team_name\n";
+    static final int MIN_BUFFER_SIZE = 64;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final byte[] digits = new byte[20];
+    private long rows;
+
+    MemberCsvWriter(WritableByteChannel channel, int bufferSize) {
+        if (bufferSize < MIN_BUFFER_SIZE) {
+            throw new IllegalArgumentException("bufferSize 는 " + MIN_BUFFER_SIZE + " 이상이어야 합니다. bufferSize=" + bufferSize);
+        }
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize); // FileChannel 이 임시 direct 버퍼로 복사하지 않게
+        putText(HEADER, false);
+    }
+
+    void write(MemberTeamDto dto) {
+        putLong(dto.getMemberId());
+        putByte(',');
+        putText(dto.getUsername(), true);
+        putByte(',');
+        putLong(dto.getAge());
+        putByte(',');
+        if (dto.getTeamId() != null) {
+            putLong(dto.getTeamId());
+        }
+        putByte(',');
+        putText(dto.getTeamName(), true);
+        putByte('\n');
+        rows++;
+    }
+
+    long rows() {
+        return rows;
+    }
+
+    // 채널은 닫지 않는다. (채널을 연 쪽에서 닫는다)
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void putLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            putText(Long.toString(value), false);
+            return;
+        }
+        if (value < 0) {
+            putByte('-');
+            value = -value;
+        }
+        int position = digits.length;
+        do {
+            digits[--position] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+
+        int length = digits.length - position;
+        if (buffer.remaining() < length) {
+            drain();
+        }
+        buffer.put(digits, position, length);
+    }
+
+    private void putText(String value, boolean escape) {
+        if (value == null) {
+            return;
+        }
+        boolean quote = escape && needsQuote(value);
+        if (quote) {
+            putByte('"');
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (quote && c == '"') {
+                    putByte('"');
+                }
+                putByte(c);
+            } else if (c < 0x800) {
+                putByte(0xC0 | (c >> 6));
+                putByte(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                putByte(0xF0 | (codePoint >> 18));
+                putByte(0x80 | ((codePoint >> 12) & 0x3F));
+                putByte(0x80 | ((codePoint >> 6) & 0x3F));
+                putByte(0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                putByte('?'); // 짝이 없는 서러게이트
+            } else {
+                putByte(0xE0 | (c >> 12));
+                putByte(0x80 | ((c >> 6) & 0x3F));
+                putByte(0x80 | (c & 0x3F));
+            }
+        }
+        if (quote) {
+            putByte('"');
+        }
+    }
+
+    private static boolean needsQuote(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void putByte(int b) {
+        if (!buffer.hasRemaining()) {
+            drain();
+        }
+        buffer.put((byte) b);
+    }
+
+    private void drain() {
+        try {
+            flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
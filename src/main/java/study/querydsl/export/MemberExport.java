@@ -0,0 +1,24 @@
+package study.querydsl.export;
+
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * 만들어진 내보내기 파일 정보.
+ */
+@Getter
+public class MemberExport {
+
+    private final UUID id;
+    private final long rows;
+    private final long bytes;
+    private final long elapsedMillis;
+
+    MemberExport(UUID id, long rows, long bytes, long elapsedMillis) {
+        this.id = id;
+        this.rows = rows;
+        this.bytes = bytes;
+        this.elapsedMillis = elapsedMillis;
+    }
+}
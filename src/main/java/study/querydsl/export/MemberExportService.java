@@ -0,0 +1,101 @@
+package study.querydsl.export;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberJpaRepository;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * 검색 결과 전체를 CSV 파일로 내보낸다.
+ * searchStream() 커서로 한 건씩 읽어 MemberCsvWriter 버퍼를 거쳐 FileChannel 에 쓰므로
+ * 결과 건수와 상관없이 메모리 사용량이 일정하다. 다 쓴 뒤에 이름을 바꿔서 쓰는 중인 파일은 조회되지 않는다.
+ * ttl 이 지난 파일은 다음 내보내기 때 지운다. 쓰다가 프로세스가 죽어서 남은 .part 파일도 같이 지운다.
+ * (쓰는 중인 .part 는 계속 수정 시각이 바뀌므로 ttl 보다 오래 멈춰 있지 않는 한 지워지지 않는다)
+ */
+@Slf4j
+@Component
+public class MemberExportService {
+
+    private static final String EXTENSION = ".csv";
+    private static final String PART = ".part";
+
+    private final MemberJpaRepository memberJpaRepository;
+    private final Path directory;
+    private final int bufferSize;
+    private final Duration ttl;
+
+    public MemberExportService(MemberJpaRepository memberJpaRepository,
+                               @Value("${member.export.dir:${java.io.tmpdir}/member-export}") String directory,
+                               @Value("${member.export.buffer-size:65536}") int bufferSize,
+                               @Value("${member.export.ttl:1h}") Duration ttl) {
+        this.memberJpaRepository = memberJpaRepository;
+        this.directory = Path.of(directory);
+        this.bufferSize = bufferSize;
+        this.ttl = ttl;
+    }
+
+    public MemberExport export(MemberSearchCondition condition) throws IOException {
+        Files.createDirectories(directory);
+        deleteExpired();
+
+        long startNanos = System.nanoTime();
+        UUID id = UUID.randomUUID();
+        Path writing = directory.resolve(id + EXTENSION + PART);
+
+        long rows;
+        try (FileChannel channel = FileChannel.open(writing, CREATE_NEW, WRITE);
+             MemberCsvWriter writer = new MemberCsvWriter(channel, bufferSize)) {
+            memberJpaRepository.searchStream(condition, writer::write);
+            rows = writer.rows();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(writing);
+            throw e;
+        }
+
+        Path file = Files.move(writing, path(id), ATOMIC_MOVE);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        log.info("export {}: {} rows, {} bytes in {} ms", id, rows, Files.size(file), elapsedMillis);
+        return new MemberExport(id, rows, Files.size(file), elapsedMillis);
+    }
+
+    public Optional<Path> find(UUID id) {
+        Path file = path(id);
+        return Files.isRegularFile(file) ? Optional.of(file) : Optional.empty();
+    }
+
+    private Path path(UUID id) {
+        return directory.resolve(id + EXTENSION);
+    }
+
+    private void deleteExpired() throws IOException {
+        Instant expiredBefore = Instant.now().minus(ttl);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*{" + EXTENSION + "," + EXTENSION + PART + "}")) {
+            for (Path file : files) {
+                try {
+                    if (Files.getLastModifiedTime(file).toInstant().isBefore(expiredBefore)) {
+                        Files.deleteIfExists(file);
+                    }
+                } catch (NoSuchFileException e) {
+                    // 다른 내보내기가 먼저 지웠거나 이름을 바꿨다
+                }
+            }
+        }
+    }
+}
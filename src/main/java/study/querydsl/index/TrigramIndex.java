@@ -0,0 +1,80 @@
+package study.querydsl.index;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * username 의 연속된 세 글자(trigram)마다 그 글자를 가진 회원 id 를 모아 둔 역색인.
+ * "member12" 를 포함하는 username 은 "mem", "emb", ... "r12" 를 모두 가지므로
+ * 각 trigram 의 id 집합의 교집합이 후보가 된다. 후보가 실제로 포함하는지는 호출한 쪽에서 확인한다.
+ */
+final class TrigramIndex {
+
+    static final int GRAM = 3;
+
+    private final Map<Long, Set<Long>> postings = new HashMap<>();
+
+    void add(String username, long memberId) {
+        for (int i = 0; i + GRAM <= username.length(); i++) {
+            postings.computeIfAbsent(trigram(username, i), k -> new HashSet<>()).add(memberId);
+        }
+    }
+
+    void remove(String username, long memberId) {
+        for (int i = 0; i + GRAM <= username.length(); i++) {
+            long key = trigram(username, i);
+            Set<Long> memberIds = postings.get(key);
+            if (memberIds != null) {
+                memberIds.remove(memberId);
+                if (memberIds.isEmpty()) {
+                    postings.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * value 의 trigram 을 모두 가진 회원 id. 가장 작은 집합을 기준으로 나머지 집합에 있는지만 본다.
+     * value 가 세 글자보다 짧으면 trigram 으로 좁힐 수 없으므로 null 이다.
+     */
+    Set<Long> candidates(String value) {
+        if (value.length() < GRAM) {
+            return null;
+        }
+
+        Set<Long> smallest = null;
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            Set<Long> memberIds = postings.get(trigram(value, i));
+            if (memberIds == null) {
+                return Set.of();
+            }
+            if (smallest == null || memberIds.size() < smallest.size()) {
+                smallest = memberIds;
+            }
+        }
+
+        Set<Long> result = new HashSet<>();
+        for (Long memberId : smallest) {
+            if (containsAll(value, memberId)) {
+                result.add(memberId);
+            }
+        }
+        return result;
+    }
+
+    private boolean containsAll(String value, Long memberId) {
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            if (!postings.get(trigram(value, i)).contains(memberId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // char 세 개(16bit 씩)를 long 하나로 묶는다
+    private static long trigram(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+}
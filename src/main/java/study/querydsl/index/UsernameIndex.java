@@ -0,0 +1,179 @@
+package study.querydsl.index;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.entity.MemberChangedEvent;
+import study.querydsl.support.CommittedView;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * username 의 prefix/부분 문자열 검색을 위한 메모리 색인. prefix 는 trie 로, 부분 문자열은 trigram 역색인으로 찾는다.
+ * like 'x%' 는 username 인덱스를 타지만 like '%x%' 는 테이블 전체를 읽어야 하는데,
+ * 여기서 후보 id 를 먼저 골라 member_id in (...) 으로 좁히면 pk 로 그 행만 읽는다.
+ *
+ * <p>커밋된 MemberChangedEvent 로 한 건씩 고치고, 벌크 연산(BULK)이면 버렸다가 다음 검색 때 다시 읽는다.
+ * 커밋된 상태만 알기 때문에 쓰기 트랜잭션 안의 검색에는 쓰지 않는다. (MemberSearchPlanner)
+ *
+ * <p>DB 커밋과 AFTER_COMMIT 반영 사이에는 색인이 DB 보다 늦어서, 방금 저장한 회원을 후보에서 놓칠 수 있다.
+ * 그래서 회원을 바꾼 트랜잭션이 하나라도 끝나지 않았으면(첫 flush 부터 afterCompletion 까지) 후보를 고르지 않고 like 로 찾는다.
+ * 이렇게 넘어간 횟수는 member.search.planner.username.index (result=fallback) 에 같이 잡힌다.
+ * 여러 트랜잭션에 걸쳐 이벤트 없이 바꾸는 벌크 연산(MemberBulkMutator)은 writeStarted()/writeFinished() 로 실행 내내 같은 표시를 한다.
+ * 이벤트를 발행하지 않는 변경(deleteAllInBatch, 네이티브 SQL)은 invalidate() 하기 전까지 알 수 없다.
+ */
+@Component
+public class UsernameIndex {
+
+    private static final int LOAD_FETCH_SIZE = 1_000;
+
+    private final JPAQueryFactory query;
+    private final int maxCandidates;
+    private final CommittedView<Usernames> usernames;
+    private final AtomicInteger writesInFlight = new AtomicInteger();
+
+    public UsernameIndex(JPAQueryFactory query, PlatformTransactionManager transactionManager,
+                         @Value("${member.username-index.max-candidates:1000}") int maxCandidates) {
+        this.query = query;
+        this.maxCandidates = maxCandidates;
+        this.usernames = new CommittedView<>(transactionManager, this::readAll);
+    }
+
+    /**
+     * username 이 prefix 로 시작하고 contains 를 포함하는 회원 id (오름차순). null 인 조건은 보지 않는다.
+     *
+     * @return 후보가 max-candidates 보다 많거나 색인으로 좁힐 수 없으면(세 글자 미만의 부분 문자열만 있을 때),
+     * 또는 반영되지 않은 회원 변경이 있으면 null. 이때는 like 로 찾는다.
+     */
+    public List<Long> candidates(String prefix, String contains) {
+        if (prefix == null && contains == null || writesInFlight.get() > 0) {
+            return null;
+        }
+        return usernames.read(usernames -> usernames.find(prefix, contains, maxCandidates));
+    }
+
+    public void invalidate() {
+        usernames.invalidate();
+    }
+
+    /**
+     * writeFinished() 까지 후보를 고르지 않는다. 끝내기 전에 BULK 이벤트로 색인을 버려야 바뀐 값을 다시 읽는다.
+     */
+    public void writeStarted() {
+        writesInFlight.incrementAndGet();
+    }
+
+    public void writeFinished() {
+        writesInFlight.decrementAndGet();
+    }
+
+    // 트랜잭션의 첫 회원 변경에서 세고, 트랜잭션이 끝나면 뺀다. afterCompletion 은 AFTER_COMMIT 리스너보다 나중이다
+    @EventListener
+    public void onMemberChanging(MemberChangedEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(writesInFlight)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(writesInFlight, Boolean.TRUE);
+        writesInFlight.incrementAndGet();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResource(writesInFlight);
+                writesInFlight.decrementAndGet();
+            }
+        });
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMemberChanged(MemberChangedEvent event) {
+        if (event.isBulk()) {
+            invalidate();
+            return;
+        }
+        String username = event.getType() == MemberChangedEvent.Type.REMOVE ? null : event.getUsername();
+        usernames.apply(usernames -> usernames.put(event.getMemberId(), username));
+    }
+
+    private Usernames readAll() {
+        Usernames loading = new Usernames();
+        try (Stream<Tuple> rows = query
+                .select(member.id, member.username)
+                .from(member)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, LOAD_FETCH_SIZE)
+                .stream()) {
+            rows.forEach(row -> loading.put(row.get(member.id), row.get(member.username)));
+        }
+        return loading;
+    }
+
+    private static final class Usernames {
+
+        // 수정 이벤트에는 이전 username 이 없으므로 id 별 현재 username 을 들고 있다가 색인에서 뺀다
+        private final Map<Long, String> byId = new HashMap<>();
+        private final UsernameTrie trie = new UsernameTrie();
+        private final TrigramIndex trigrams = new TrigramIndex();
+
+        // username 이 null 이면 색인에서 뺀다
+        void put(Long memberId, String username) {
+            String previous = username != null ? byId.put(memberId, username) : byId.remove(memberId);
+            if (Objects.equals(previous, username)) {
+                return;
+            }
+            if (previous != null) {
+                trie.remove(previous, memberId);
+                trigrams.remove(previous, memberId);
+            }
+            if (username != null) {
+                trie.add(username, memberId);
+                trigrams.add(username, memberId);
+            }
+        }
+
+        List<Long> find(String prefix, String contains, int limit) {
+            Collection<Long> found = null;
+            if (prefix != null) {
+                List<Long> byPrefix = trie.startsWith(prefix, limit);
+                found = byPrefix.size() <= limit ? byPrefix : null;
+            }
+            if (found == null && contains != null) {
+                found = trigrams.candidates(contains);
+            }
+            if (found == null) {
+                return null;
+            }
+
+            // prefix 와 contains 가 같이 있으면 한쪽 후보를 다른 쪽 조건으로 거른다
+            List<Long> result = new ArrayList<>();
+            for (Long memberId : found) {
+                String username = byId.get(memberId);
+                if ((prefix == null || username.startsWith(prefix))
+                        && (contains == null || username.contains(contains))) {
+                    result.add(memberId);
+                    if (result.size() > limit) {
+                        return null;
+                    }
+                }
+            }
+            result.sort(null);
+            return result;
+        }
+    }
+}
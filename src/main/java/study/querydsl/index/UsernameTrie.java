@@ -0,0 +1,90 @@
+package study.querydsl.index;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * username 문자 하나가 노드 하나인 trie. 노드마다 그 username 을 가진 회원 id 를 둔다.
+ * prefix 노드까지 내려간 뒤 아래 노드의 id 만 모으므로 전체 회원 수와 상관없이 결과 수만큼만 본다.
+ */
+final class UsernameTrie {
+
+    private final Node root = new Node();
+
+    void add(String username, long memberId) {
+        Node node = root;
+        for (int i = 0; i < username.length(); i++) {
+            node = node.child(username.charAt(i));
+        }
+        if (node.memberIds == null) {
+            node.memberIds = new HashSet<>(2);
+        }
+        node.memberIds.add(memberId);
+    }
+
+    // 빈 노드를 정리하지는 않는다. 같은 이름이 다시 들어오면 그대로 쓴다
+    void remove(String username, long memberId) {
+        Node node = find(username);
+        if (node != null && node.memberIds != null) {
+            node.memberIds.remove(memberId);
+        }
+    }
+
+    /**
+     * prefix 로 시작하는 username 의 회원 id 를 limit + 1 개까지 모은다.
+     * 결과가 limit 보다 크면 더 있다는 뜻이다.
+     */
+    List<Long> startsWith(String prefix, int limit) {
+        List<Long> result = new ArrayList<>();
+        Node start = find(prefix);
+        if (start == null) {
+            return result;
+        }
+
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(start);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            if (node.memberIds != null) {
+                for (Long memberId : node.memberIds) {
+                    result.add(memberId);
+                    if (result.size() > limit) {
+                        return result;
+                    }
+                }
+            }
+            if (node.children != null) {
+                node.children.values().forEach(stack::push);
+            }
+        }
+        return result;
+    }
+
+    private Node find(String key) {
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.children != null ? node.children.get(key.charAt(i)) : null;
+        }
+        return node;
+    }
+
+    // 대부분의 노드는 자식이 하나고 id 가 없으므로 둘 다 필요할 때 만든다
+    private static final class Node {
+
+        private Map<Character, Node> children;
+        private Set<Long> memberIds;
+
+        Node child(char c) {
+            if (children == null) {
+                children = new HashMap<>(2);
+            }
+            return children.computeIfAbsent(c, k -> new Node());
+        }
+    }
+}
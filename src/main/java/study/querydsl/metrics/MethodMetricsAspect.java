@@ -0,0 +1,115 @@
+package study.querydsl.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberSearchQueryCache;
+import study.querydsl.sql.JdbcActivityListener;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 리포지토리/컨트롤러 메서드마다 지연 시간(p50/p95/p99), 반환 행 수, 실행한 SQL 수,
+ * 커넥션 대기 시간을 기록한다. /actuator/metrics/method.latency 처럼 조회한다.
+ * 태그: method(타입.메서드), shape(검색 조건 모양, MemberSearchQueryCache 비트마스크)
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class MethodMetricsAspect {
+
+    private final MeterRegistry registry;
+    private final JdbcActivityListener jdbcActivity;
+
+    @Around("@within(org.springframework.stereotype.Repository)"
+            + " || @within(org.springframework.web.bind.annotation.RestController)"
+            + " || this(org.springframework.data.repository.Repository)")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        Tags tags = Tags.of(
+                "method", typeName(joinPoint) + "." + joinPoint.getSignature().getName(),
+                "shape", shapeOf(joinPoint.getArgs()));
+
+        long statementsBefore = jdbcActivity.statementCount();
+        long connectionWaitBefore = jdbcActivity.connectionWaitNanos();
+        long start = System.nanoTime();
+        String outcome = "success";
+        try {
+            Object result = joinPoint.proceed();
+            Long rows = rowsOf(result);
+            if (rows != null) {
+                DistributionSummary.builder("method.rows")
+                        .tags(tags)
+                        .publishPercentiles(0.5, 0.95, 0.99)
+                        .register(registry)
+                        .record(rows);
+            }
+            return result;
+        } catch (Throwable e) {
+            outcome = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            Timer.builder("method.latency")
+                    .tags(tags)
+                    .tag("outcome", outcome)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(registry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            DistributionSummary.builder("method.statements")
+                    .tags(tags)
+                    .register(registry)
+                    .record(jdbcActivity.statementCount() - statementsBefore);
+            Timer.builder("method.connection.wait")
+                    .tags(tags)
+                    .register(registry)
+                    .record(jdbcActivity.connectionWaitNanos() - connectionWaitBefore, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // 스프링 데이터 리포지토리는 구현체(SimpleJpaRepository)가 아니라 인터페이스 이름으로 남긴다
+    private static String typeName(ProceedingJoinPoint joinPoint) {
+        Object proxy = joinPoint.getThis();
+        if (proxy instanceof Repository<?, ?>) {
+            for (Class<?> type : AopProxyUtils.proxiedUserInterfaces(proxy)) {
+                if (Repository.class.isAssignableFrom(type) && type != Repository.class) {
+                    return type.getSimpleName();
+                }
+            }
+        }
+        return AopUtils.getTargetClass(joinPoint.getTarget()).getSimpleName();
+    }
+
+    private static String shapeOf(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof MemberSearchCondition condition) {
+                return String.valueOf(MemberSearchQueryCache.shapeOf(condition));
+            }
+        }
+        return "none";
+    }
+
+    private static Long rowsOf(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return (long) collection.size();
+        }
+        if (result instanceof Slice<?> slice) {
+            return (long) slice.getNumberOfElements();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1L : 0L;
+        }
+        return null;
+    }
+}
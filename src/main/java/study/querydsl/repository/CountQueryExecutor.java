@@ -0,0 +1,71 @@
+package study.querydsl.repository;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * count 쿼리를 content 쿼리와 동시에 돌리기 위한 전용 실행기.
+ * 작업마다 별도 스레드의 읽기 전용 트랜잭션에서 실행되므로 호출한 쪽과 다른 커넥션을 쓴다.
+ * Java 21 이상이면 가상 스레드를 사용한다.
+ *
+ * <p>호출한 요청이 이미 커넥션 하나를 잡고 있으므로 동시 실행 수를 커넥션 풀 크기의 절반 아래로 제한한다.
+ * 자리가 없으면 기다리지 않고 null 을 돌려주어 호출한 쪽이 자기 커넥션으로 세게 하고,
+ * timeout 안에 끝나지 않은 작업은 TimeoutException 으로 끝낸다. (풀이 바닥나도 서로 기다리며 멈추지 않는다)
+ *
+ * <p>Executor 빈으로 등록하면 스프링 부트의 applicationTaskExecutor 가 빠지므로 내부에서만 만든다.
+ */
+@Component
+public class CountQueryExecutor implements DisposableBean {
+
+    private final SimpleAsyncTaskExecutor executor;
+    private final TransactionTemplate transactionTemplate;
+    private final Semaphore permits;
+    private final Duration timeout;
+
+    public CountQueryExecutor(PlatformTransactionManager transactionManager,
+                              @Value("${member.count-executor.concurrency-limit:4}") int concurrencyLimit,
+                              @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                              @Value("${member.count-executor.timeout:5s}") Duration timeout) {
+        this.executor = new SimpleAsyncTaskExecutor("count-query-");
+        this.executor.setVirtualThreads(Runtime.version().feature() >= 21);
+        this.permits = new Semaphore(Math.max(1, Math.min(concurrencyLimit, poolSize / 2)));
+        this.timeout = timeout;
+
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * @return 동시 실행 수가 다 찼으면 null
+     */
+    public CompletableFuture<Long> submit(LongSupplier countQuery) {
+        if (!permits.tryAcquire()) {
+            return null;
+        }
+        try {
+            return CompletableFuture
+                    .supplyAsync(() -> transactionTemplate.execute(status -> countQuery.getAsLong()), executor)
+                    .whenComplete((total, e) -> permits.release()) // 결과를 버려도(cancel) 쿼리가 끝나야 반납
+                    .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.close();
+    }
+}
@@ -0,0 +1,155 @@
+package study.querydsl.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 검색 조건 여러 개를 트랜잭션(커넥션) 하나에서 실행한다.
+ *
+ * <p>teamName(또는 username) 하나만 다르고 나머지가 같은 조건들은 teamNames(usernames) in 쿼리 하나로 합쳐 실행한 뒤
+ * 결과를 팀 이름(회원명)으로 나눠 돌려준다. 완전히 같은 조건은 한 번만 실행하고,
+ * MemberSearchPlanner 가 빈 결과로 판단한 조건은 실행하지 않는다.
+ * 쿼리는 search() 와 같은 모양별 캐시(MemberSearchQueryCache)를 쓴다.
+ */
+@Component
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class MemberBatchSearch {
+
+    public static final int MAX_CONDITIONS = 100;
+
+    private final MemberSearchPlanner planner;
+    private final MemberSearchQueryCache searchQueryCache;
+
+    /**
+     * @return i 번째 조건의 결과가 i 번째에 있다
+     * @throws IllegalArgumentException 조건이 MAX_CONDITIONS 개보다 많거나 null 인 조건이 있을 때
+     */
+    public List<List<MemberTeamDto>> search(List<MemberSearchCondition> conditions) {
+        if (conditions.size() > MAX_CONDITIONS) {
+            throw new IllegalArgumentException(
+                    "조건은 " + MAX_CONDITIONS + " 개까지 보낼 수 있습니다. size=" + conditions.size());
+        }
+        if (conditions.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("null 인 조건은 보낼 수 없습니다.");
+        }
+
+        List<List<MemberTeamDto>> results = new ArrayList<>(Collections.nCopies(conditions.size(), List.of()));
+        Map<MergeKey, Merge> merges = new LinkedHashMap<>();
+        for (int i = 0; i < conditions.size(); i++) {
+            MemberSearchPlan plan = planner.plan("batch", conditions.get(i), 1);
+            if (plan.isEmpty()) {
+                continue;
+            }
+            MemberSearchCondition condition = plan.getCondition();
+            Dimension dimension = Dimension.of(condition);
+            merges.computeIfAbsent(new MergeKey(dimension, dimension.without(condition)),
+                            key -> new Merge(key, plan.getMemberIds()))
+                    .add(dimension.value(condition), i);
+        }
+
+        merges.values().forEach(merge -> merge.execute(results));
+        return results;
+    }
+
+    /**
+     * 합칠 때 기준이 되는 조건. 값이 하나인 조건(teamName, username)만 합치고,
+     * 이미 목록 조건(teamNames, usernames)이 있으면 합치지 않는다.
+     */
+    private enum Dimension {
+
+        TEAM_NAME(MemberSearchCondition::getTeamName, MemberSearchCondition::setTeamName,
+                MemberSearchCondition::setTeamNames, MemberTeamDto::getTeamName),
+        USERNAME(MemberSearchCondition::getUsername, MemberSearchCondition::setUsername,
+                MemberSearchCondition::setUsernames, MemberTeamDto::getUsername),
+        NONE(condition -> null, (condition, value) -> { }, (condition, values) -> { }, dto -> null);
+
+        private final Function<MemberSearchCondition, String> getter;
+        private final BiConsumer<MemberSearchCondition, String> setter;
+        private final BiConsumer<MemberSearchCondition, List<String>> listSetter;
+        private final Function<MemberTeamDto, String> resultValue;
+
+        Dimension(Function<MemberSearchCondition, String> getter, BiConsumer<MemberSearchCondition, String> setter,
+                  BiConsumer<MemberSearchCondition, List<String>> listSetter,
+                  Function<MemberTeamDto, String> resultValue) {
+            this.getter = getter;
+            this.setter = setter;
+            this.listSetter = listSetter;
+            this.resultValue = resultValue;
+        }
+
+        static Dimension of(MemberSearchCondition condition) {
+            if (condition.getTeamName() != null && condition.getTeamNames() == null) {
+                return TEAM_NAME;
+            }
+            if (condition.getUsername() != null && condition.getUsernames() == null) {
+                return USERNAME;
+            }
+            return NONE;
+        }
+
+        String value(MemberSearchCondition condition) {
+            return getter.apply(condition);
+        }
+
+        // 기준 조건만 뺀 사본. 이 사본이 같은 조건끼리 합친다
+        MemberSearchCondition without(MemberSearchCondition condition) {
+            MemberSearchCondition rest = condition.normalized();
+            setter.accept(rest, null);
+            return rest;
+        }
+    }
+
+    private record MergeKey(Dimension dimension, MemberSearchCondition rest) {
+    }
+
+    private final class Merge {
+
+        private final MergeKey key;
+        // 나머지 조건이 같으므로 후보 id 도 같다
+        private final List<Long> memberIds;
+        // 기준 조건의 값 -> 그 값을 보낸 요청 순번들 (NONE 이면 null 키 하나)
+        private final Map<String, List<Integer>> indexes = new LinkedHashMap<>();
+
+        Merge(MergeKey key, List<Long> memberIds) {
+            this.key = key;
+            this.memberIds = memberIds;
+        }
+
+        void add(String value, int index) {
+            indexes.computeIfAbsent(value, v -> new ArrayList<>()).add(index);
+        }
+
+        void execute(List<List<MemberTeamDto>> results) {
+            Dimension dimension = key.dimension();
+            if (dimension == Dimension.NONE) {
+                List<MemberTeamDto> rows = Collections.unmodifiableList(searchQueryCache.search(key.rest(), memberIds));
+                indexes.get(null).forEach(index -> results.set(index, rows));
+                return;
+            }
+
+            MemberSearchCondition merged = key.rest().normalized();
+            dimension.listSetter.accept(merged, indexes.keySet().stream().sorted().toList());
+            Map<String, List<MemberTeamDto>> byValue = searchQueryCache.search(merged, memberIds).stream()
+                    .collect(Collectors.groupingBy(dimension.resultValue));
+
+            indexes.forEach((value, targets) -> {
+                List<MemberTeamDto> rows = Collections.unmodifiableList(byValue.getOrDefault(value, List.of()));
+                targets.forEach(index -> results.set(index, rows));
+            });
+        }
+    }
+}
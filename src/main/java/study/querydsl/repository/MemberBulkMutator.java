@@ -0,0 +1,116 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.MemberChangedEvent;
+import study.querydsl.index.UsernameIndex;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * 벌크 update/delete 를 회원 id 순으로 chunkSize 건씩 나눠 실행한다.
+ * 청크마다 새 트랜잭션에서 커밋하므로 락은 그 청크의 행에만, 그 청크가 끝날 때까지만 걸린다.
+ *
+ * <p>청크가 커밋되면 호출한 쪽 영속성 컨텍스트(OSIV)에서 바뀐 회원만 준영속으로 만든다.
+ * 트랜잭션 안에서 호출하면 IllegalStateException 을 던진다. (MemberRepository 를 거치면 InvalidDataAccessApiUsageException 으로 바뀐다)
+ * 바깥 트랜잭션이 같은 회원을 flush 해 두었다면 청크가 그 락을 기다리게 되고,
+ * 바깥이 롤백되어도 이미 커밋된 청크는 되돌릴 수 없기 때문이다.
+ *
+ * <p>벌크 연산은 엔티티 리스너를 거치지 않으므로 마지막 청크가 끝나면 MemberChangedEvent.bulk() 를 한 번 발행한다.
+ * 중간 청크가 실패해도 앞서 커밋된 청크가 있으면 발행한다. 실행 중에는 캐시가 바뀌기 전 값을 보여줄 수 있다.
+ * UsernameIndex 는 후보를 놓치면 검색 결과가 빠지므로 실행 내내 쓰지 않게 해 둔다.
+ */
+@Component
+public class MemberBulkMutator {
+
+    private final EntityManager em;
+    private final TransactionTemplate chunkTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UsernameIndex usernameIndex;
+
+    public MemberBulkMutator(EntityManager em, PlatformTransactionManager transactionManager,
+                             ApplicationEventPublisher eventPublisher, UsernameIndex usernameIndex) {
+        this.em = em;
+        this.chunkTemplate = new TransactionTemplate(transactionManager);
+        this.chunkTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.eventPublisher = eventPublisher;
+        this.usernameIndex = usernameIndex;
+    }
+
+    /**
+     * @param nextChunk (마지막 id, chunkSize) 를 받아 그 다음 id 들을 오름차순으로 돌려준다. 첫 청크는 null 이다.
+     * @param mutation  청크의 id 들에 update/delete 를 실행하고 바뀐 행 수를 돌려준다.
+     * @return 바뀐 행 수의 합
+     */
+    public long execute(int chunkSize, BiFunction<Long, Integer, List<Long>> nextChunk,
+                        ToLongFunction<List<Long>> mutation) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize 는 1 이상이어야 합니다. chunkSize=" + chunkSize);
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("청크마다 따로 커밋하므로 트랜잭션 밖에서 호출해야 합니다.");
+        }
+
+        long affected = 0;
+        boolean committed = false;
+        Long lastId = null;
+        usernameIndex.writeStarted();
+        try {
+            while (true) {
+                Long afterId = lastId;
+                long[] chunkAffected = {0};
+                List<Long> ids = chunkTemplate.execute(status -> {
+                    List<Long> chunk = nextChunk.apply(afterId, chunkSize);
+                    if (!chunk.isEmpty()) {
+                        chunkAffected[0] = mutation.applyAsLong(chunk);
+                    }
+                    return chunk;
+                });
+
+                if (ids == null || ids.isEmpty()) {
+                    return affected;
+                }
+                committed = true;
+                affected += chunkAffected[0];
+                detach(ids);
+
+                if (ids.size() < chunkSize) {
+                    return affected;
+                }
+                lastId = ids.get(ids.size() - 1);
+            }
+        } finally {
+            try {
+                if (committed) {
+                    // 트랜잭션 밖이므로 AFTER_COMMIT 리스너도 바로 실행된다 (fallbackExecution)
+                    eventPublisher.publishEvent(MemberChangedEvent.bulk());
+                }
+            } finally {
+                usernameIndex.writeFinished(); // 색인을 버린 뒤에 풀어야 바뀌기 전 후보를 쓰지 않는다
+            }
+        }
+    }
+
+    // em.flush(); em.clear() 대신 바뀐 회원만 영속성 컨텍스트에서 뺀다
+    private void detach(List<Long> ids) {
+        EntityManagerFactory emf = em.getEntityManagerFactory();
+        EntityManager current = EntityManagerFactoryUtils.getTransactionalEntityManager(emf);
+        if (current == null) {
+            return;
+        }
+        for (Long id : ids) {
+            Member reference = current.getReference(Member.class, id); // 이미 있으면 그 인스턴스, 없으면 초기화하지 않은 프록시
+            current.detach(reference);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package study.querydsl.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.MemberChangedEvent;
+import study.querydsl.entity.TeamChangedEvent;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * 검색 조건별 전체 건수 캐시. 페이지를 넘길 때마다 같은 count 쿼리가 나가는 것을 막는다.
+ * 회원이 하나라도 바뀌면 어떤 조건의 건수가 바뀌었는지 알 수 없으므로 전부 비운다.
+ * 팀 이름이 바뀌거나 팀이 삭제되어도 teamName 조건의 건수가 바뀌므로 마찬가지다.
+ */
+@Component
+public class MemberCountCache {
+
+    private final Cache<MemberSearchCondition, Long> cache;
+
+    public MemberCountCache(@Value("${member.count-cache.ttl:30s}") Duration ttl,
+                            @Value("${member.count-cache.maximum-size:10000}") long maximumSize) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    public long get(MemberSearchCondition condition, LongSupplier countQuery) {
+        return cache.get(condition.normalized(), key -> countQuery.getAsLong());
+    }
+
+    public Long getIfPresent(MemberSearchCondition condition) {
+        return cache.getIfPresent(condition.normalized());
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    // flush 시점에 바로 비워서 같은 트랜잭션 안에서도 바뀐 건수를 보게 한다.
+    @EventListener
+    public void onMemberChanged(MemberChangedEvent event) {
+        invalidateAll();
+    }
+
+    // 커밋/롤백 이후에 한 번 더 비워서 트랜잭션 도중에 캐시된 값을 버린다.
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION)
+    public void afterMemberChangeCompleted(MemberChangedEvent event) {
+        invalidateAll();
+    }
+
+    @EventListener
+    public void onTeamChanged(TeamChangedEvent event) {
+        invalidateAll();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION)
+    public void afterTeamChangeCompleted(TeamChangedEvent event) {
+        invalidateAll();
+    }
+}
@@ -0,0 +1,25 @@
+package study.querydsl.repository;
+
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+public class MemberCountEstimate {
+
+    private final long total;
+    private final boolean approximate;
+
+    private MemberCountEstimate(long total, boolean approximate) {
+        this.total = total;
+        this.approximate = approximate;
+    }
+
+    public static MemberCountEstimate exact(long total) {
+        return new MemberCountEstimate(total, false);
+    }
+
+    public static MemberCountEstimate approximate(long total) {
+        return new MemberCountEstimate(total, true);
+    }
+}
@@ -0,0 +1,128 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Query;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 검색 조건의 전체 건수를 threshold 까지만 정확히 센다.
+ * 그보다 많으면 전체 행 수 통계(H2 ROW_COUNT_ESTIMATE)에 표본에서 조건을 만족한 비율을 곱해 추정한다.
+ * 어떤 경우에도 threshold + sampleSize 건 정도만 읽는다.
+ *
+ * <p>표본은 member_id 의 최소~최대 범위를 sampleSize 등분한 간격(stride)으로, 시작 위치는 무작위로 고른다.
+ * 앞쪽 id 만 읽으면 오래된 회원에 치우치지만 이렇게 하면 id 범위 전체에 고르게 퍼진다.
+ * 조건을 만족하는 비율이 p, 표본 행 수가 n 이면 비율의 표준오차는 sqrt(p(1-p)/n) 이하, 즉 0.5/sqrt(n) 이하다.
+ * 기본값 n = 10,000 이면 추정치의 오차는 95% 확률로 전체 행 수의 ±1% 안쪽이다.
+ * 조건이 id 순서와 stride 주기로 맞물려 있으면(예: id 가 짝수인 회원만) 이 범위를 벗어날 수 있다.
+ * member.count.sample-seed 를 주면 시작 위치가 매번 같아진다. (테스트용)
+ *
+ * <p>행 수 통계와 표본 id 생성(system_range)은 H2 에만 있으므로, 다른 DB 에서는 추정하지 않고
+ * 앞에서 센 threshold + 1 건을 "그 이상" 이라는 뜻의 추정치로 돌려준다.
+ */
+@Component
+public class MemberCountEstimator {
+
+    private final EntityManager em;
+    private final MemberSearchPlanner planner;
+    private final long threshold;
+    private final int sampleSize;
+    private final Long sampleSeed;
+    private final boolean sampling;
+
+    public MemberCountEstimator(EntityManager em, EntityManagerFactory emf, MemberSearchPlanner planner,
+                                @Value("${member.count.approximate-threshold:100000}") long threshold,
+                                @Value("${member.count.sample-size:10000}") int sampleSize,
+                                @Value("${member.count.sample-seed:#{null}}") Long sampleSeed) {
+        this.em = em;
+        this.planner = planner;
+        this.threshold = threshold;
+        this.sampleSize = sampleSize;
+        this.sampleSeed = sampleSeed;
+        this.sampling = emf.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect() instanceof H2Dialect;
+    }
+
+    public MemberCountEstimate count(MemberSearchCondition condition) {
+        MemberSearchCondition normalized = condition.normalized();
+        return count(normalized, normalized.getMemberIds());
+    }
+
+    /**
+     * @param memberIds MemberSearchPlan#getMemberIds(). null 이면 id 로 좁히지 않는다
+     */
+    public MemberCountEstimate count(MemberSearchCondition condition, List<Long> memberIds) {
+        MemberSearchSql sql = MemberSearchSql.of(condition, memberIds);
+        if (!sql.isTeamJoinNeeded()) {
+            planner.recordJoinEliminated("approximate");
+        }
+
+        long bounded = boundedCount(sql);
+        if (bounded <= threshold) {
+            return MemberCountEstimate.exact(bounded);
+        }
+        if (!sampling) {
+            return MemberCountEstimate.approximate(bounded);
+        }
+
+        Long tableRows = tableRowEstimate();
+        if (tableRows == null) {
+            return MemberCountEstimate.approximate(bounded);
+        }
+
+        Object[] idRange = (Object[]) em.createNativeQuery("select min(member_id), max(member_id) from member")
+                .getSingleResult();
+        if (idRange[0] == null) {
+            return MemberCountEstimate.approximate(bounded);
+        }
+        long minId = ((Number) idRange[0]).longValue();
+        long maxId = ((Number) idRange[1]).longValue();
+        long stride = (maxId - minId) / sampleSize + 1;
+        long start = minId + sampleOffset(stride);
+
+        long matched = count(sql.bind(em.createNativeQuery(
+                "select count(*)" + sql.sampledCountFrom() + sql.where())), start, maxId, stride);
+        // id 사이에 빈 곳이 있으므로 실제로 찾은 행 수로 나눈다
+        long sampled = count(em.createNativeQuery(
+                "select count(*) from member where member_id in" + MemberSearchSql.SAMPLE_IDS), start, maxId, stride);
+        long estimate = sampled > 0 ? tableRows * matched / sampled : 0;
+
+        // 앞에서 센 만큼은 확실히 있으므로 그보다 작게 추정하지 않는다
+        return MemberCountEstimate.approximate(Math.max(bounded, estimate));
+    }
+
+    private long sampleOffset(long stride) {
+        return sampleSeed != null ? new SplittableRandom(sampleSeed).nextLong(stride) : ThreadLocalRandom.current().nextLong(stride);
+    }
+
+    private long count(Query query, long start, long end, long stride) {
+        return ((Number) query
+                .setParameter("sampleStart", start)
+                .setParameter("sampleEnd", end)
+                .setParameter("sampleStride", stride)
+                .getSingleResult()).longValue();
+    }
+
+    // threshold + 1 건을 세면 멈춘다
+    private long boundedCount(MemberSearchSql sql) {
+        return ((Number) sql.bind(em.createNativeQuery(
+                        "select count(*) from (select 1 as one" + sql.countFrom() + sql.where()
+                                + " fetch first " + (threshold + 1) + " rows only) bounded"))
+                .getSingleResult()).longValue();
+    }
+
+    private Long tableRowEstimate() {
+        @SuppressWarnings("unchecked")
+        List<Number> rows = em.createNativeQuery(
+                        "select row_count_estimate from information_schema.tables where table_name = 'MEMBER'")
+                .getResultList();
+        return rows.isEmpty() || rows.get(0) == null ? null : rows.get(0).longValue();
+    }
+}
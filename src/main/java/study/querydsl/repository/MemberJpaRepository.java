@@ -6,7 +6,9 @@ import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
@@ -17,17 +19,33 @@ import study.querydsl.entity.QTeam;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import static org.springframework.util.CollectionUtils.isEmpty;
 import static org.springframework.util.StringUtils.*;
 import static study.querydsl.entity.QMember.*;
 import static study.querydsl.entity.QTeam.*;
 
+/**
+ * 조회 메서드는 호출한 쪽 트랜잭션을 따른다. 읽기 전용 트랜잭션이면 엔티티도 읽기 전용이고, 쓰기 트랜잭션이면 평소처럼 수정이 flush 된다.
+ * 쓰기 트랜잭션 안에서도 스냅샷 없이 읽고 싶으면 *ReadOnly 메서드를 쓴다. (메모리가 절반 정도이고 flush 대상도 아니다)
+ * 같은 영속성 컨텍스트에서는 em.find() 도 이미 올라온 읽기 전용 인스턴스를 그대로 돌려주므로 다시 읽는 것으로는 수정할 수 없다.
+ * 수정하려면 em.detach() 로 떼어 낸 뒤 em.find() 로 다시 읽거나,
+ * session.setReadOnly(entity, false) 로 바꾼다. (이때의 상태가 스냅샷이 되므로 그 전에 바꾼 값은 flush 되지 않는다)
+ */
 @Repository
+@Transactional(readOnly = true)
 @RequiredArgsConstructor
 public class MemberJpaRepository {
 
+    private static final int STREAM_FETCH_SIZE = 500;
+
     private final EntityManager em;
     private final JPAQueryFactory query;
+    private final MemberSearchQueryCache searchQueryCache;
+    private final MemberSearchResultCache resultCache;
+    private final MemberSearchPlanner planner;
 
     /*
     public MemberJpaRepository(EntityManager em) {
@@ -36,6 +54,7 @@ public class MemberJpaRepository {
     }
     */
 
+    @Transactional
     public void save(Member member) {
         em.persist(member);
     }
@@ -47,7 +66,15 @@ public class MemberJpaRepository {
     }
 
     public List<Member> findAll() {
-        return em.createQuery("select m from Member m", Member.class).getResultList();
+        return em.createQuery("select m from Member m", Member.class)
+                .getResultList();
+    }
+
+    // 바깥이 쓰기 트랜잭션이어도 읽기 전용
+    public List<Member> findAllReadOnly() {
+        return em.createQuery("select m from Member m", Member.class)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultList();
     }
 
     public List<Member> findAll_QueryDsl() {
@@ -69,7 +96,16 @@ public class MemberJpaRepository {
                 .fetch();
     }
 
-    public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition) {
+    public List<Member> findByUsernameReadOnly(String username) {
+        return query
+                .selectFrom(member)
+                .where(member.username.eq(username))
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .fetch();
+    }
+
+    public List<MemberTeamDto> searchByBuilder(MemberSearchCondition searchCondition) {
+        MemberSearchCondition condition = searchCondition.normalized();
         BooleanBuilder builder = new BooleanBuilder();
         if (hasText(condition.getUsername())) {
             builder.and(member.username.eq(condition.getUsername()));
@@ -83,6 +119,21 @@ public class MemberJpaRepository {
         if (condition.getAgeLoe() != null) {
             builder.and(member.age.loe(condition.getAgeLoe()));
         }
+        if (hasText(condition.getUsernamePrefix())) {
+            builder.and(member.username.startsWith(condition.getUsernamePrefix()));
+        }
+        if (hasText(condition.getUsernameContains())) {
+            builder.and(member.username.contains(condition.getUsernameContains()));
+        }
+        if (!isEmpty(condition.getUsernames())) {
+            builder.and(member.username.in(condition.getUsernames()));
+        }
+        if (!isEmpty(condition.getTeamNames())) {
+            builder.and(team.name.in(condition.getTeamNames()));
+        }
+        if (!isEmpty(condition.getMemberIds())) {
+            builder.and(member.id.in(condition.getMemberIds()));
+        }
 
 
         return query
@@ -100,8 +151,29 @@ public class MemberJpaRepository {
     }
 
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        // 조건 모양별로 미리 만들어 둔 쿼리를 재사용 (Querydsl 버전은 searchStream 참고)
+        MemberSearchPlan plan = planner.plan("search", condition, 1);
+        if (plan.isEmpty()) {
+            return List.of();
+        }
+        MemberSearchCondition planned = plan.getCondition();
+        return resultCache.list("search", planned, () -> searchQueryCache.search(planned, plan.getMemberIds()));
+    }
 
-        return query
+    /**
+     * search() 와 같은 조건이지만 결과를 List 로 모으지 않고 커서로 한 건씩 넘긴다.
+     * DTO 프로젝션이라 영속성 컨텍스트에 엔티티가 쌓이지 않으므로 detach 할 대상도 없다.
+     * 스트림이 열려 있는 동안 커넥션을 잡고 있어야 하므로 메서드 안에서 끝까지 소비한다.
+     */
+    @Transactional(readOnly = true)
+    public void searchStream(MemberSearchCondition searchCondition, Consumer<MemberTeamDto> action) {
+        MemberSearchPlan plan = planner.plan("stream", searchCondition, 1);
+        if (plan.isEmpty()) {
+            return;
+        }
+        MemberSearchCondition condition = plan.getCondition();
+
+        try (Stream<MemberTeamDto> stream = query
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -114,9 +186,17 @@ public class MemberJpaRepository {
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
+                        ageLoe(condition.getAgeLoe()),
+                        usernameStartsWith(condition.getUsernamePrefix()),
+                        usernameContains(condition.getUsernameContains()),
+                        usernameIn(condition.getUsernames()),
+                        teamNameIn(condition.getTeamNames()),
+                        memberIdIn(plan.getMemberIds())
                 )
-                .fetch();
+                .setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .stream()) {
+            stream.forEach(action);
+        }
     }
 
     private BooleanExpression usernameEq(String usernameCond) {
@@ -136,4 +216,24 @@ public class MemberJpaRepository {
         return ageLoeCond != null ? member.age.loe(ageLoeCond) : null;
     }
 
+    private BooleanExpression usernameIn(List<String> usernamesCond) {
+        return !isEmpty(usernamesCond) ? member.username.in(usernamesCond) : null;
+    }
+
+    private BooleanExpression teamNameIn(List<String> teamNamesCond) {
+        return !isEmpty(teamNamesCond) ? team.name.in(teamNamesCond) : null;
+    }
+
+    private BooleanExpression usernameStartsWith(String usernamePrefixCond) {
+        return hasText(usernamePrefixCond) ? member.username.startsWith(usernamePrefixCond) : null;
+    }
+
+    private BooleanExpression usernameContains(String usernameContainsCond) {
+        return hasText(usernameContainsCond) ? member.username.contains(usernameContainsCond) : null;
+    }
+
+    private BooleanExpression memberIdIn(List<Long> memberIds) {
+        return !isEmpty(memberIds) ? member.id.in(memberIds) : null;
+    }
+
 }
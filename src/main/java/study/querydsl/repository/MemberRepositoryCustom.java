@@ -1,16 +1,89 @@
 package study.querydsl.repository;
 
+import com.querydsl.core.types.Predicate;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import study.querydsl.dto.MemberCursor;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface MemberRepositoryCustom {
 
     List<MemberTeamDto> search(MemberSearchCondition condition);
 
+    /**
+     * findAll(Predicate) 와 같지만 바깥이 쓰기 트랜잭션이어도 읽기 전용으로 가져온다.
+     * 스냅샷을 만들지 않는 대신 수정해도 flush 되지 않는다.
+     */
+    List<Member> findAllReadOnly(Predicate predicate);
+
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
+
+    /**
+     * count(*) over() 로 페이지 내용과 전체 건수를 한 번의 쿼리로 가져온다.
+     */
+    Page<MemberTeamDto> searchPageWindow(MemberSearchCondition condition, Pageable pageable);
+
+    /**
+     * searchPageComplex 와 같은 결과지만 count 쿼리를 다른 커넥션에서 동시에 실행한다.
+     * 응답 시간이 두 쿼리의 합이 아니라 느린 쪽 하나에 가까워진다.
+     */
+    Page<MemberTeamDto> searchPageParallel(MemberSearchCondition condition, Pageable pageable);
+
+    /**
+     * 결과가 많을 때 정확한 count 대신 추정치를 쓰는 페이징. 추정치면 totalApproximate 가 true 다.
+     *
+     * @see MemberCountEstimator
+     */
+    Page<MemberTeamDto> searchPageApproximate(MemberSearchCondition condition, Pageable pageable);
+
+    /**
+     * (age, member_id) 순으로 정렬된 키셋 페이징. offset 없이 커서 다음 행부터 읽기 때문에
+     * 몇 번째 페이지든 비용이 같다.
+     * size 는 1 이상이어야 하고 1,000 을 넘으면 1,000 건만 읽는다.
+     *
+     * @throws org.springframework.dao.InvalidDataAccessApiUsageException size 가 0 이하일 때.
+     * (구현은 IllegalArgumentException 을 던지고 리포지토리 프록시의 예외 변환이 바꾼다)
+     */
+    Slice<MemberTeamDto> searchKeyset(MemberSearchCondition condition, MemberCursor cursor, int size);
+
+    /**
+     * 회원을 batchSize 단위로 flush 하고 저장한 회원만 준영속으로 만들면서 저장한다.
+     * 호출한 쪽이 읽어 둔 엔티티는 그대로 영속 상태다.
+     * hibernate.jdbc.batch_size 와 맞추면 batchSize 건이 insert 한 번으로 나간다.
+     * 회원이 참조하는 팀은 이미 저장되어 있어야 한다.
+     * Member 생성자는 team.getMembers() 에도 회원을 넣으므로, 그 팀 객체를 들고 있으면 저장한 회원도 메모리에 남는다.
+     *
+     * @return 저장한 회원 수
+     * @throws org.springframework.dao.InvalidDataAccessApiUsageException batchSize 가 0 이하일 때.
+     * (구현은 IllegalArgumentException 을 던지고 리포지토리 프록시의 예외 변환이 바꾼다)
+     */
+    long bulkInsert(Stream<Member> members, int batchSize);
+
+    /**
+     * 조건에 맞는 회원의 username 을 바꾼다. 회원 id 순으로 chunkSize 건씩 각각의 트랜잭션에서 커밋한다.
+     * 트랜잭션 밖에서 호출해야 한다.
+     *
+     * @return 바뀐 회원 수
+     * @throws org.springframework.dao.InvalidDataAccessApiUsageException chunkSize 가 0 이하이거나 트랜잭션 안에서 호출했을 때.
+     * (MemberBulkMutator 는 IllegalArgumentException, IllegalStateException 을 던지고 리포지토리 프록시의 예외 변환이 바꾼다)
+     * @see MemberBulkMutator
+     */
+    long bulkUpdateUsername(MemberSearchCondition condition, String username, int chunkSize);
+
+    /**
+     * 조건에 맞는 회원의 나이에 amount 를 더한다. 청크 단위는 bulkUpdateUsername 과 같다.
+     */
+    long bulkAddAge(MemberSearchCondition condition, int amount, int chunkSize);
+
+    /**
+     * 조건에 맞는 회원을 삭제한다. 청크 단위는 bulkUpdateUsername 과 같다.
+     */
+    long bulkDelete(MemberSearchCondition condition, int chunkSize);
 }
@@ -1,54 +1,108 @@
 package study.querydsl.repository;
 
 import com.querydsl.core.QueryResults;
+import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.query.NativeQuery;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.dto.ApproximatePage;
+import study.querydsl.dto.MemberCursor;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.MemberChangedEvent;
+import study.querydsl.entity.MemberEntityListener;
+import study.querydsl.entity.Team;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
 
+import static org.springframework.util.CollectionUtils.isEmpty;
 import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
 
+@Slf4j
 public class MemberRepositoryImpl implements MemberRepositoryCustom{
 
+    static final int MAX_KEYSET_SIZE = 1_000;
+
+    private final EntityManager em;
     private final JPAQueryFactory query;
+    private final MemberCountCache countCache;
+    private final MemberSearchQueryCache searchQueryCache;
+    private final CountQueryExecutor countQueryExecutor;
+    private final MemberCountEstimator countEstimator;
+    private final MemberBulkMutator bulkMutator;
+    private final MemberSearchResultCache resultCache;
+    private final MemberSearchPlanner planner;
+    private final TeamRepository teamRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public MemberRepositoryImpl(EntityManager em) {
+    public MemberRepositoryImpl(EntityManager em, MemberCountCache countCache,
+                                MemberSearchQueryCache searchQueryCache, CountQueryExecutor countQueryExecutor,
+                                MemberCountEstimator countEstimator, MemberBulkMutator bulkMutator,
+                                MemberSearchResultCache resultCache, MemberSearchPlanner planner,
+                                TeamRepository teamRepository, ApplicationEventPublisher eventPublisher) {
+        this.em = em;
         this.query = new JPAQueryFactory(em);
+        this.countCache = countCache;
+        this.searchQueryCache = searchQueryCache;
+        this.countQueryExecutor = countQueryExecutor;
+        this.countEstimator = countEstimator;
+        this.bulkMutator = bulkMutator;
+        this.resultCache = resultCache;
+        this.planner = planner;
+        this.teamRepository = teamRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        MemberSearchPlan plan = planner.plan("search", condition, 1);
+        if (plan.isEmpty()) {
+            return List.of();
+        }
+        MemberSearchCondition planned = plan.getCondition();
+        return resultCache.list("search", planned, () -> searchQueryCache.search(planned, plan.getMemberIds()));
+    }
+
+    @Override
+    public List<Member> findAllReadOnly(Predicate predicate) {
         return query
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id,
-                        team.name))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+                .selectFrom(member)
+                .where(predicate)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
                 .fetch();
     }
 
     @Override
-    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition searchCondition, Pageable pageable) {
+        MemberSearchCondition condition = searchCondition.normalized();
         QueryResults<MemberTeamDto> results = query
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
@@ -62,7 +116,12 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
+                        ageLoe(condition.getAgeLoe()),
+                        usernameStartsWith(condition.getUsernamePrefix()),
+                        usernameContains(condition.getUsernameContains()),
+                        usernameIn(condition.getUsernames()),
+                        teamNameIn(condition.getTeamNames()),
+                        memberIdIn(condition.getMemberIds())
                 )
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
@@ -76,6 +135,170 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
 
     @Override
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        MemberSearchPlan plan = planner.plan("complex", condition, 2);
+        if (plan.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, 0);
+        }
+        return resultCache.page("complex", plan.getCondition(), pageable, () -> complexPage(plan, pageable));
+    }
+
+    private Page<MemberTeamDto> complexPage(MemberSearchPlan plan, Pageable pageable) {
+        MemberSearchCondition condition = plan.getCondition();
+        List<MemberTeamDto> content = contentQuery(plan)
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        LongSupplier countQuery = countQuery(plan, "complex");
+
+        //return new PageImpl<>(content, pageable, total);
+        // content 쿼리가 먼저 flush 를 일으키므로 그 사이의 변경은 이미 캐시에서 비워져 있다.
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> countCache.get(condition, countQuery));
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageWindow(MemberSearchCondition condition, Pageable pageable) {
+        MemberSearchPlan plan = planner.plan("window", condition, 2);
+        if (plan.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, 0);
+        }
+        return resultCache.page("window", plan.getCondition(), pageable, () -> windowPage(plan, pageable));
+    }
+
+    private Page<MemberTeamDto> windowPage(MemberSearchPlan plan, Pageable pageable) {
+        MemberSearchCondition condition = plan.getCondition();
+        MemberSearchSql sql = MemberSearchSql.of(condition, plan.getMemberIds());
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = sql.bind(em.createNativeQuery(
+                        "select m.member_id, m.username, m.age, t.team_id, t.name, count(*) over () as total_count"
+                                + MemberSearchSql.FROM
+                                + sql.where()
+                                + " order by m.member_id"))
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(Member.class) // 관련 엔티티만 auto flush
+                .addSynchronizedEntityClass(Team.class)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+
+        List<MemberTeamDto> content = rows.stream()
+                .map(row -> new MemberTeamDto(
+                        ((Number) row[0]).longValue(),
+                        (String) row[1],
+                        ((Number) row[2]).intValue(),
+                        row[3] != null ? ((Number) row[3]).longValue() : null,
+                        (String) row[4]))
+                .toList();
+
+        // 마지막 페이지를 넘어가면 행이 없어서 전체 건수도 알 수 없다. 이때만 count 쿼리로 보완
+        if (rows.isEmpty()) {
+            return PageableExecutionUtils.getPage(content, pageable,
+                    () -> countCache.get(condition, countQuery(plan, "window")));
+        }
+        long total = ((Number) rows.get(0)[5]).longValue();
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageParallel(MemberSearchCondition condition, Pageable pageable) {
+        MemberSearchPlan plan = planner.plan("parallel", condition, 2);
+        if (plan.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, 0);
+        }
+        return resultCache.page("parallel", plan.getCondition(), pageable, () -> parallelPage(plan, pageable));
+    }
+
+    private Page<MemberTeamDto> parallelPage(MemberSearchPlan plan, Pageable pageable) {
+        MemberSearchCondition condition = plan.getCondition();
+        LongSupplier count = () -> countCache.get(condition, countQuery(plan, "parallel"));
+        // 캐시에 있으면 동시에 돌릴 필요가 없고, 쓰기 트랜잭션 안이면 다른 커넥션의 count 가
+        // 아직 커밋하지 않은 행을 못 봐서 content 와 어긋나므로 같은 커넥션에서 차례로 센다
+        boolean sequential = countCache.getIfPresent(condition) != null
+                || TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        CompletableFuture<Long> total = sequential ? null : countQueryExecutor.submit(count);
+
+        List<MemberTeamDto> content;
+        try {
+            content = contentQuery(plan)
+                    .offset(pageable.getOffset())
+                    .limit(pageable.getPageSize())
+                    .fetch();
+        } catch (RuntimeException e) {
+            if (total != null) {
+                total.cancel(false);
+            }
+            throw e;
+        }
+
+        boolean[] countUsed = {false};
+        Page<MemberTeamDto> page = PageableExecutionUtils.getPage(content, pageable, () -> {
+            countUsed[0] = true;
+            // 타임아웃 뒤에는 캐시를 거치지 않는다. 같은 키를 계산 중인 count 스레드를 기다리게 된다
+            return total != null ? join(total, countQuery(plan, "parallel")) : count.getAsLong();
+        });
+        if (!countUsed[0] && total != null) {
+            // content 만으로 전체 건수를 알 수 있는 경우. 이미 실행 중인 쿼리는 결과만 버린다.
+            total.cancel(false);
+        }
+        return page;
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageApproximate(MemberSearchCondition condition, Pageable pageable) {
+        MemberSearchPlan plan = planner.plan("approximate", condition, 2);
+        if (plan.isEmpty()) {
+            return new ApproximatePage<>(List.of(), pageable, 0, false);
+        }
+        return resultCache.page("approximate", plan.getCondition(), pageable, () -> approximatePage(plan, pageable));
+    }
+
+    private Page<MemberTeamDto> approximatePage(MemberSearchPlan plan, Pageable pageable) {
+        MemberSearchCondition condition = plan.getCondition();
+        List<MemberTeamDto> content = contentQuery(plan)
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        // 마지막 페이지라 content 만으로 정확한 건수를 알 수 있으면 추정하지 않는다
+        if (content.size() < pageable.getPageSize() && !(content.isEmpty() && pageable.getOffset() > 0)) {
+            return new ApproximatePage<>(content, pageable, pageable.getOffset() + content.size(), false);
+        }
+
+        MemberCountEstimate estimate = countEstimator.count(condition, plan.getMemberIds());
+        return new ApproximatePage<>(content, pageable, estimate.getTotal(), estimate.isApproximate());
+    }
+
+    // 제한 시간 안에 끝나지 않으면 (커넥션을 못 얻은 경우 등) 자기 커넥션으로 직접 센다
+    private static long join(CompletableFuture<Long> future, LongSupplier fallback) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                log.warn("count query timed out, counting inline");
+                return fallback.getAsLong();
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public Slice<MemberTeamDto> searchKeyset(MemberSearchCondition searchCondition, MemberCursor cursor, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size 는 1 이상이어야 합니다. size=" + size);
+        }
+        size = Math.min(size, MAX_KEYSET_SIZE);
+        MemberSearchPlan plan = planner.plan("keyset", searchCondition, 1);
+        if (plan.isEmpty()) {
+            return new SliceImpl<>(List.of(), PageRequest.ofSize(size), false);
+        }
+        MemberSearchCondition condition = plan.getCondition();
+
         List<MemberTeamDto> content = query
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
@@ -89,25 +312,185 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
+                        ageLoe(condition.getAgeLoe()),
+                        usernameStartsWith(condition.getUsernamePrefix()),
+                        usernameContains(condition.getUsernameContains()),
+                        usernameIn(condition.getUsernames()),
+                        teamNameIn(condition.getTeamNames()),
+                        memberIdIn(plan.getMemberIds()),
+                        afterCursor(cursor)
                 )
-                .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
+                .orderBy(member.age.asc(), member.id.asc())
+                .limit(size + 1) // 한 건 더 읽어서 다음 페이지 존재 여부를 판단
                 .fetch();
 
-        JPAQuery<Long> countQuery = query
-                .select(member.count())
+        boolean hasNext = content.size() > size;
+        if (hasNext) {
+            content = content.subList(0, size);
+        }
+
+        return new SliceImpl<>(content, PageRequest.ofSize(size), hasNext);
+    }
+
+    @Override
+    @Transactional
+    public long bulkInsert(Stream<Member> members, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize 는 1 이상이어야 합니다. batchSize=" + batchSize);
+        }
+
+        long startNanos = System.nanoTime();
+        // 행마다 이벤트를 발행하면 캐시 무효화와 트랜잭션 동기화가 행 수만큼 쌓이므로 끝에 BULK 한 번으로 알린다
+        long count = MemberEntityListener.withoutEvents(() -> persistAll(members, batchSize));
+        eventPublisher.publishEvent(MemberChangedEvent.bulk());
+
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        log.info("bulkInsert: {} members in {} ms ({} rows/s, batchSize={})",
+                count, elapsedMillis, count * 1000 / elapsedMillis, batchSize);
+        return count;
+    }
+
+    private long persistAll(Stream<Member> members, int batchSize) {
+        long count = 0;
+        List<Member> batch = new ArrayList<>(batchSize);
+
+        Iterator<Member> iterator = members.iterator();
+        while (iterator.hasNext()) {
+            Member member = iterator.next();
+            em.persist(member);
+            batch.add(member);
+            if (++count % batchSize == 0) {
+                flushAndDetach(batch);
+            }
+        }
+        flushAndDetach(batch);
+        return count;
+    }
+
+    // em.clear() 는 호출한 쪽이 읽어 둔 엔티티까지 준영속으로 만드므로 여기서 저장한 회원만 뺀다
+    private void flushAndDetach(List<Member> batch) {
+        em.flush();
+        batch.forEach(em::detach);
+        batch.clear();
+    }
+
+    @Override
+    public long bulkUpdateUsername(MemberSearchCondition condition, String username, int chunkSize) {
+        MemberSearchCondition normalized = condition.normalized();
+        return bulkMutator.execute(chunkSize, (afterId, size) -> chunkIds(normalized, afterId, size),
+                ids -> query
+                        .update(member)
+                        .set(member.username, username)
+                        .where(member.id.in(ids))
+                        .execute());
+    }
+
+    @Override
+    public long bulkAddAge(MemberSearchCondition condition, int amount, int chunkSize) {
+        MemberSearchCondition normalized = condition.normalized();
+        return bulkMutator.execute(chunkSize, (afterId, size) -> chunkIds(normalized, afterId, size),
+                ids -> query
+                        .update(member)
+                        .set(member.age, member.age.add(amount))
+                        .where(member.id.in(ids))
+                        .execute());
+    }
+
+    @Override
+    public long bulkDelete(MemberSearchCondition condition, int chunkSize) {
+        MemberSearchCondition normalized = condition.normalized();
+        return bulkMutator.execute(chunkSize, (afterId, size) -> chunkIds(normalized, afterId, size),
+                ids -> query
+                        .delete(member)
+                        .where(member.id.in(ids))
+                        .execute());
+    }
+
+    // 조건은 id 를 고를 때만 쓰고 update/delete 는 pk 로만 찾는다. (team 조인이 벌크 쿼리에 들어가지 않게)
+    private List<Long> chunkIds(MemberSearchCondition condition, Long afterId, int size) {
+        return query
+                .select(member.id)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()),
+                        usernameStartsWith(condition.getUsernamePrefix()),
+                        usernameContains(condition.getUsernameContains()),
+                        usernameIn(condition.getUsernames()),
+                        teamNameIn(condition.getTeamNames()),
+                        memberIdIn(condition.getMemberIds()),
+                        afterId != null ? member.id.gt(afterId) : null
+                )
+                .orderBy(member.id.asc())
+                .limit(size)
+                .fetch();
+    }
+
+    private JPAQuery<MemberTeamDto> contentQuery(MemberSearchPlan plan) {
+        MemberSearchCondition condition = plan.getCondition();
+        return query
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name))
                 .from(member)
                 .leftJoin(member.team, team)
                 .where(
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
+                        ageLoe(condition.getAgeLoe()),
+                        usernameStartsWith(condition.getUsernamePrefix()),
+                        usernameContains(condition.getUsernameContains()),
+                        usernameIn(condition.getUsernames()),
+                        teamNameIn(condition.getTeamNames()),
+                        memberIdIn(plan.getMemberIds())
                 );
+    }
 
-        //return new PageImpl<>(content, pageable, total);
-        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+    // team 은 조인하지 않고 센다. 팀 이름 조건은 쿼리 캐시로 팀 id 를 찾아 member.team_id in (...) 으로 바꾼다
+    private LongSupplier countQuery(MemberSearchPlan plan, String method) {
+        MemberSearchCondition condition = plan.getCondition();
+        return () -> {
+            List<Long> teamIds = teamIdsOf(condition);
+            if (teamIds != null && teamIds.isEmpty()) {
+                return 0L;
+            }
+            planner.recordJoinEliminated(method);
+            return query
+                    .select(member.count())
+                    .from(member)
+                    .where(
+                            usernameEq(condition.getUsername()),
+                            ageGoe(condition.getAgeGoe()),
+                            ageLoe(condition.getAgeLoe()),
+                            usernameStartsWith(condition.getUsernamePrefix()),
+                            usernameContains(condition.getUsernameContains()),
+                            usernameIn(condition.getUsernames()),
+                            memberTeamIdIn(teamIds),
+                            memberIdIn(plan.getMemberIds())
+                    )
+                    .fetchOne();
+        };
+    }
+
+    // teamName, teamNames 를 둘 다 만족하는 팀 id. 팀 이름 조건이 없으면 null
+    private List<Long> teamIdsOf(MemberSearchCondition condition) {
+        List<Long> teamIds = null;
+        if (hasText(condition.getTeamName())) {
+            teamIds = teamRepository.findIdsByName(condition.getTeamName());
+        }
+        if (!isEmpty(condition.getTeamNames())) {
+            Set<Long> byNames = new HashSet<>();
+            condition.getTeamNames().forEach(name -> byNames.addAll(teamRepository.findIdsByName(name)));
+            teamIds = teamIds != null ? teamIds.stream().filter(byNames::contains).toList() : List.copyOf(byNames);
+        }
+        return teamIds;
     }
 
     private BooleanExpression usernameEq(String usernameCond) {
@@ -125,4 +508,41 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
     private BooleanExpression ageLoe(Integer ageLoeCond) {
         return ageLoeCond != null ? member.age.loe(ageLoeCond) : null;
     }
+
+    private BooleanExpression usernameIn(List<String> usernamesCond) {
+        return !isEmpty(usernamesCond) ? member.username.in(usernamesCond) : null;
+    }
+
+    private BooleanExpression teamNameIn(List<String> teamNamesCond) {
+        return !isEmpty(teamNamesCond) ? team.name.in(teamNamesCond) : null;
+    }
+
+    private BooleanExpression usernameStartsWith(String usernamePrefixCond) {
+        return hasText(usernamePrefixCond) ? member.username.startsWith(usernamePrefixCond) : null;
+    }
+
+    private BooleanExpression usernameContains(String usernameContainsCond) {
+        return hasText(usernameContainsCond) ? member.username.contains(usernameContainsCond) : null;
+    }
+
+    private BooleanExpression memberTeamIdIn(List<Long> teamIds) {
+        return teamIds != null ? member.team.id.in(teamIds) : null;
+    }
+
+    // 조건의 memberIds 와 UsernameIndex 후보를 합친 것 (MemberSearchPlan#getMemberIds).
+    // like 조건도 그대로 걸기 때문에 색인에 남은 옛 username 은 여기서 걸러진다
+    private BooleanExpression memberIdIn(List<Long> memberIds) {
+        return !isEmpty(memberIds) ? member.id.in(memberIds) : null;
+    }
+
+    // where (age, member_id) > (?, ?) 를 JPQL 이 지원하는 형태로 풀어 쓴 것
+    private BooleanExpression afterCursor(MemberCursor cursor) {
+        if (cursor == null || cursor.isFirstPage()) {
+            return null;
+        }
+        // age >= ? 는 or 조건과 같은 뜻이지만 (age, member_id) 인덱스의 범위 시작점으로 쓰인다
+        return member.age.goe(cursor.getLastAge())
+                .and(member.age.gt(cursor.getLastAge())
+                        .or(member.age.eq(cursor.getLastAge()).and(member.id.gt(cursor.getLastMemberId()))));
+    }
 }
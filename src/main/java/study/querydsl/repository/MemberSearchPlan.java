@@ -0,0 +1,27 @@
+package study.querydsl.repository;
+
+import lombok.Getter;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.List;
+
+/**
+ * MemberSearchPlanner 가 검색 조건을 분석한 결과.
+ */
+@Getter
+public class MemberSearchPlan {
+
+    // 공백을 정리한 조건. 실제 쿼리는 이 조건으로 만든다.
+    private final MemberSearchCondition condition;
+    // ageGoe > ageLoe 처럼 결과가 없을 수밖에 없는 조건
+    private final boolean empty;
+    // 조건의 memberIds 와 username 색인이 고른 후보 id 의 교집합. null 이면 id 로 좁히지 않는다.
+    // (usernamePrefix/usernameContains 는 그대로 같이 건다)
+    private final List<Long> memberIds;
+
+    MemberSearchPlan(MemberSearchCondition condition, boolean empty, List<Long> memberIds) {
+        this.condition = condition;
+        this.empty = empty;
+        this.memberIds = memberIds;
+    }
+}
@@ -0,0 +1,83 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.index.UsernameIndex;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 검색 조건을 Querydsl 로 넘기기 전에 정리하고, DB 에 가지 않아도 되는 검색을 걸러낸다.
+ *
+ * <ul>
+ *     <li>username, teamName 의 앞뒤 공백을 자르고 빈 문자열은 조건에서 뺀다.</li>
+ *     <li>ageGoe > ageLoe 면 쿼리 없이 빈 결과를 돌려주도록 표시한다.</li>
+ *     <li>usernamePrefix/usernameContains 는 UsernameIndex 로 후보 id 를 골라 member_id in (...) 으로 좁힌다.
+ *     후보가 없으면 빈 결과, 너무 많으면 like 만으로 찾는다. 조건에 memberIds 가 있으면 그것과의 교집합을 쓴다.</li>
+ *     <li>usernames, teamNames, memberIds 는 중복을 빼고 정렬한다. in 목록 길이는 hibernate.query.in_clause_parameter_padding 으로
+ *     2의 거듭제곱에 맞춰지므로 길이가 조금씩 다른 목록도 같은 SQL(실행 계획, PreparedStatement 캐시)을 쓴다.</li>
+ *     <li>count 쿼리는 team 을 조인하지 않는다. 팀 이름 조건은 TeamRepository#findIdsByName (쿼리 캐시)으로 팀 id 로 바꾼다.</li>
+ * </ul>
+ * 아낀 쿼리 수는 member.search.planner.skipped.queries, 뺀 조인 수는 member.search.planner.eliminated.joins,
+ * 색인 사용 여부는 member.search.planner.username.index (result=hit|fallback) 로 나간다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberSearchPlanner {
+
+    private final MeterRegistry registry;
+    private final UsernameIndex usernameIndex;
+
+    /**
+     * @param method  지표 태그로 쓸 검색 메서드 이름
+     * @param queries 빈 결과로 끝낼 때 실행하지 않게 되는 쿼리 수 (목록 1, 페이징 2)
+     */
+    public MemberSearchPlan plan(String method, MemberSearchCondition condition, int queries) {
+        MemberSearchCondition normalized = condition.normalized();
+        boolean empty = normalized.getAgeGoe() != null && normalized.getAgeLoe() != null
+                && normalized.getAgeGoe() > normalized.getAgeLoe();
+        List<Long> memberIds = empty ? null
+                : intersect(normalized.getMemberIds(), usernameCandidates(method, normalized));
+        if (memberIds != null && memberIds.isEmpty()) {
+            empty = true;
+        }
+        if (empty) {
+            registry.counter("member.search.planner.skipped.queries", "method", method).increment(queries);
+        }
+        return new MemberSearchPlan(normalized, empty, empty ? null : memberIds);
+    }
+
+    // 둘 다 오름차순이므로 결과도 오름차순이다. null 은 제한 없음
+    private static List<Long> intersect(List<Long> memberIds, List<Long> candidates) {
+        if (memberIds == null || candidates == null) {
+            return memberIds != null ? memberIds : candidates;
+        }
+        Set<Long> candidateSet = new HashSet<>(candidates);
+        return memberIds.stream().filter(candidateSet::contains).toList();
+    }
+
+    // 색인은 커밋된 상태만 알기 때문에 쓰기 트랜잭션 안에서는 아직 커밋하지 않은 자기 변경을 놓친다
+    private List<Long> usernameCandidates(String method, MemberSearchCondition condition) {
+        if (condition.getUsernamePrefix() == null && condition.getUsernameContains() == null) {
+            return null;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return null;
+        }
+
+        List<Long> memberIds = usernameIndex.candidates(condition.getUsernamePrefix(), condition.getUsernameContains());
+        registry.counter("member.search.planner.username.index",
+                "method", method, "result", memberIds != null ? "hit" : "fallback").increment();
+        return memberIds;
+    }
+
+    void recordJoinEliminated(String method) {
+        registry.counter("member.search.planner.eliminated.joins", "method", method).increment();
+    }
+}
@@ -0,0 +1,195 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.TypedQuery;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.springframework.util.CollectionUtils.isEmpty;
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * search(MemberSearchCondition) 전용 쿼리 캐시.
+ * 조건 9개의 유무로 쿼리 모양은 512가지뿐이라 모양(비트마스크)별로 JPQL 을 한 번만 만들어
+ * named query 로 등록해 두고, 이후에는 파라미터만 바인딩한다.
+ * 매 호출마다 Querydsl 표현식을 만들고 JPQL 로 직렬화하는 비용이 없어진다.
+ * in 목록은 길이가 달라도 in_clause_parameter_padding 덕분에 2의 거듭제곱 길이별 SQL 하나씩만 생긴다.
+ */
+@Component
+public class MemberSearchQueryCache {
+
+    static final int USERNAME = 1;
+    static final int TEAM_NAME = 1 << 1;
+    static final int AGE_GOE = 1 << 2;
+    static final int AGE_LOE = 1 << 3;
+    static final int USERNAME_PREFIX = 1 << 4;
+    static final int USERNAME_CONTAINS = 1 << 5;
+    static final int MEMBER_IDS = 1 << 6;
+    static final int USERNAMES = 1 << 7;
+    static final int TEAM_NAMES = 1 << 8;
+    static final int SHAPES = 1 << 9;
+
+    private static final String SELECT =
+            "select new study.querydsl.dto.MemberTeamDto(m.id, m.username, m.age, t.id, t.name)"
+                    + " from Member m left join m.team t";
+
+    private final EntityManagerFactory emf;
+    private final EntityManager em;
+
+    private final AtomicReferenceArray<String> queryNames = new AtomicReferenceArray<>(SHAPES);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public MemberSearchQueryCache(EntityManagerFactory emf, EntityManager em) {
+        this.emf = emf;
+        this.em = em;
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return search(condition, condition.getMemberIds());
+    }
+
+    /**
+     * @param memberIds MemberSearchPlan#getMemberIds(). 조건의 memberIds 대신 이 값을 쓴다. null 이면 id 로 좁히지 않는다
+     */
+    public List<MemberTeamDto> search(MemberSearchCondition condition, List<Long> memberIds) {
+        int shape = shapeOf(condition) & ~MEMBER_IDS | (!isEmpty(memberIds) ? MEMBER_IDS : 0);
+        TypedQuery<MemberTeamDto> query = em.createNamedQuery(queryName(shape), MemberTeamDto.class);
+
+        if ((shape & USERNAME) != 0) {
+            query.setParameter("username", condition.getUsername());
+        }
+        if ((shape & TEAM_NAME) != 0) {
+            query.setParameter("teamName", condition.getTeamName());
+        }
+        if ((shape & AGE_GOE) != 0) {
+            query.setParameter("ageGoe", condition.getAgeGoe());
+        }
+        if ((shape & AGE_LOE) != 0) {
+            query.setParameter("ageLoe", condition.getAgeLoe());
+        }
+        if ((shape & USERNAME_PREFIX) != 0) {
+            query.setParameter("usernamePrefix", MemberSearchSql.startsWithPattern(condition.getUsernamePrefix()));
+        }
+        if ((shape & USERNAME_CONTAINS) != 0) {
+            query.setParameter("usernameContains", MemberSearchSql.containsPattern(condition.getUsernameContains()));
+        }
+        if ((shape & MEMBER_IDS) != 0) {
+            query.setParameter("memberIds", memberIds);
+        }
+        if ((shape & USERNAMES) != 0) {
+            query.setParameter("usernames", condition.getUsernames());
+        }
+        if ((shape & TEAM_NAMES) != 0) {
+            query.setParameter("teamNames", condition.getTeamNames());
+        }
+        return query.getResultList();
+    }
+
+    public static int shapeOf(MemberSearchCondition condition) {
+        int shape = 0;
+        if (hasText(condition.getUsername())) {
+            shape |= USERNAME;
+        }
+        if (hasText(condition.getTeamName())) {
+            shape |= TEAM_NAME;
+        }
+        if (condition.getAgeGoe() != null) {
+            shape |= AGE_GOE;
+        }
+        if (condition.getAgeLoe() != null) {
+            shape |= AGE_LOE;
+        }
+        if (hasText(condition.getUsernamePrefix())) {
+            shape |= USERNAME_PREFIX;
+        }
+        if (hasText(condition.getUsernameContains())) {
+            shape |= USERNAME_CONTAINS;
+        }
+        if (!isEmpty(condition.getMemberIds())) {
+            shape |= MEMBER_IDS;
+        }
+        if (!isEmpty(condition.getUsernames())) {
+            shape |= USERNAMES;
+        }
+        if (!isEmpty(condition.getTeamNames())) {
+            shape |= TEAM_NAMES;
+        }
+        return shape;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    private String queryName(int shape) {
+        String name = queryNames.get(shape);
+        if (name != null) {
+            hits.increment();
+            return name;
+        }
+
+        // 동시에 처음 들어오면 같은 쿼리를 두 번 등록할 수 있지만 덮어쓸 뿐이라 문제없다.
+        misses.increment();
+        name = "Member.search." + shape;
+        EntityManager registering = emf.createEntityManager();
+        try {
+            emf.addNamedQuery(name, registering.createQuery(jpql(shape), MemberTeamDto.class));
+        } finally {
+            registering.close();
+        }
+        queryNames.set(shape, name);
+        return name;
+    }
+
+    static String jpql(int shape) {
+        StringBuilder jpql = new StringBuilder(SELECT);
+        String separator = " where ";
+        if ((shape & USERNAME) != 0) {
+            jpql.append(separator).append("m.username = :username");
+            separator = " and ";
+        }
+        if ((shape & TEAM_NAME) != 0) {
+            jpql.append(separator).append("t.name = :teamName");
+            separator = " and ";
+        }
+        if ((shape & AGE_GOE) != 0) {
+            jpql.append(separator).append("m.age >= :ageGoe");
+            separator = " and ";
+        }
+        if ((shape & AGE_LOE) != 0) {
+            jpql.append(separator).append("m.age <= :ageLoe");
+            separator = " and ";
+        }
+        if ((shape & USERNAME_PREFIX) != 0) {
+            jpql.append(separator).append("m.username like :usernamePrefix").append(MemberSearchSql.LIKE_ESCAPE);
+            separator = " and ";
+        }
+        if ((shape & USERNAME_CONTAINS) != 0) {
+            jpql.append(separator).append("m.username like :usernameContains").append(MemberSearchSql.LIKE_ESCAPE);
+            separator = " and ";
+        }
+        if ((shape & MEMBER_IDS) != 0) {
+            jpql.append(separator).append("m.id in :memberIds");
+            separator = " and ";
+        }
+        if ((shape & USERNAMES) != 0) {
+            jpql.append(separator).append("m.username in :usernames");
+            separator = " and ";
+        }
+        if ((shape & TEAM_NAMES) != 0) {
+            jpql.append(separator).append("t.name in :teamNames");
+        }
+        return jpql.toString();
+    }
+}
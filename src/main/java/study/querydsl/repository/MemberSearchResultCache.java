@@ -0,0 +1,116 @@
+package study.querydsl.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.MemberChangedEvent;
+import study.querydsl.entity.TeamChangedEvent;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 검색 결과 캐시. 같은 조건, 같은 페이지 요청은 TTL 동안 DB 에 가지 않는다.
+ * 크기는 결과 행 수의 합(maximum-weight)으로 제한하고, 넘치면 Caffeine 의 W-TinyLFU 로 내보낸다.
+ *
+ * <p>쓰기 트랜잭션 안에서는 커밋 전 변경이 보일 수 있으므로 캐시를 거치지 않는다.
+ * 회원/팀이 바뀌면 커밋 후에 전부 비우고, 그 사이에 시작된 조회 결과는 넣지 않는다.
+ * 지표는 cache.gets, cache.evictions 등 (cache=memberSearch) 으로 나간다.
+ */
+@Component
+public class MemberSearchResultCache {
+
+    private final Cache<Key, Object> cache;
+    private final AtomicLong generation = new AtomicLong();
+
+    public MemberSearchResultCache(@Value("${member.search-cache.ttl:10s}") Duration ttl,
+                                   @Value("${member.search-cache.maximum-weight:100000}") long maximumWeight,
+                                   MeterRegistry registry) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumWeight(maximumWeight)
+                .weigher((Key key, Object value) -> 1 + rows(value))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "memberSearch");
+    }
+
+    public List<MemberTeamDto> list(String method, MemberSearchCondition condition,
+                                    Supplier<List<MemberTeamDto>> search) {
+        return get(new Key(method, condition.normalized(), Pageable.unpaged()), () -> List.copyOf(search.get()));
+    }
+
+    public <P extends Page<MemberTeamDto>> P page(String method, MemberSearchCondition condition, Pageable pageable,
+                                                  Supplier<P> search) {
+        return get(new Key(method, condition.normalized(), pageable), search);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onMemberChanged(MemberChangedEvent event) {
+        invalidateAll();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onTeamChanged(TeamChangedEvent event) {
+        invalidateAll();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T get(Key key, Supplier<T> search) {
+        if (!cacheable()) {
+            return search.get();
+        }
+
+        T cached = (T) cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long startGeneration = generation.get();
+        T result = search.get();
+        if (generation.get() == startGeneration) {
+            cache.put(key, result);
+            if (generation.get() != startGeneration) {
+                cache.invalidate(key); // put 하는 사이에 비워졌으면 되돌린다
+            }
+        }
+        return result;
+    }
+
+    private static boolean cacheable() {
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private static int rows(Object value) {
+        if (value instanceof Page<?> page) {
+            return page.getNumberOfElements();
+        }
+        return ((List<?>) value).size();
+    }
+
+    private record Key(String method, MemberSearchCondition condition, Pageable pageable) {
+    }
+}
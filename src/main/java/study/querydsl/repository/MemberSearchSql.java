@@ -0,0 +1,112 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.Query;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.util.CollectionUtils.isEmpty;
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * 네이티브 SQL 용 검색 조건. usernameEq/teamNameEq/ageGoe/ageLoe 와 같은 규칙으로
+ * 값이 있는 조건만 where 절에 붙인다.
+ * like 패턴은 Querydsl 의 startsWith/contains 처럼 '!' 로 %, _ 를 이스케이프한다.
+ */
+final class MemberSearchSql {
+
+    static final String FROM = " from member m left join team t on t.team_id = m.team_id";
+    private static final String TEAM_JOIN = " left join team t on t.team_id = m.team_id";
+    static final String LIKE_ESCAPE = " escape '!'";
+    // :sampleStart 부터 :sampleEnd 까지 :sampleStride 간격의 member_id
+    static final String SAMPLE_IDS = " (select x from system_range(:sampleStart, :sampleEnd, :sampleStride))";
+
+    private final StringBuilder where = new StringBuilder();
+    private final Map<String, Object> parameters = new LinkedHashMap<>();
+    private boolean teamJoinNeeded;
+
+    private MemberSearchSql() {
+    }
+
+    /**
+     * @param memberIds MemberSearchPlan#getMemberIds(). 조건의 memberIds 대신 이 값을 쓴다. null 이면 id 로 좁히지 않는다
+     */
+    static MemberSearchSql of(MemberSearchCondition condition, List<Long> memberIds) {
+        MemberSearchSql sql = new MemberSearchSql();
+        if (hasText(condition.getUsername())) {
+            sql.and("m.username = :username", "username", condition.getUsername());
+        }
+        if (hasText(condition.getTeamName())) {
+            sql.and("t.name = :teamName", "teamName", condition.getTeamName());
+            sql.teamJoinNeeded = true;
+        }
+        if (!isEmpty(condition.getTeamNames())) {
+            sql.and("t.name in (:teamNames)", "teamNames", condition.getTeamNames());
+            sql.teamJoinNeeded = true;
+        }
+        if (!isEmpty(condition.getUsernames())) {
+            sql.and("m.username in (:usernames)", "usernames", condition.getUsernames());
+        }
+        if (condition.getAgeGoe() != null) {
+            sql.and("m.age >= :ageGoe", "ageGoe", condition.getAgeGoe());
+        }
+        if (condition.getAgeLoe() != null) {
+            sql.and("m.age <= :ageLoe", "ageLoe", condition.getAgeLoe());
+        }
+        if (hasText(condition.getUsernamePrefix())) {
+            sql.and("m.username like :usernamePrefix" + LIKE_ESCAPE,
+                    "usernamePrefix", startsWithPattern(condition.getUsernamePrefix()));
+        }
+        if (hasText(condition.getUsernameContains())) {
+            sql.and("m.username like :usernameContains" + LIKE_ESCAPE,
+                    "usernameContains", containsPattern(condition.getUsernameContains()));
+        }
+        if (!isEmpty(memberIds)) {
+            sql.and("m.member_id in (:memberIds)", "memberIds", memberIds);
+        }
+        return sql;
+    }
+
+    static String startsWithPattern(String value) {
+        return escapeLike(value) + "%";
+    }
+
+    static String containsPattern(String value) {
+        return "%" + escapeLike(value) + "%";
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    private void and(String predicate, String name, Object value) {
+        where.append(where.isEmpty() ? " where " : " and ").append(predicate);
+        parameters.put(name, value);
+    }
+
+    boolean isTeamJoinNeeded() {
+        return teamJoinNeeded;
+    }
+
+    // count 용 from 절. 팀 이름 조건(teamName, teamNames)이 없으면 team 을 조인하지 않는다
+    String countFrom() {
+        return " from member m" + (teamJoinNeeded ? TEAM_JOIN : "");
+    }
+
+    // member_id 범위를 :sampleStride 간격으로 건너뛰며 고른 표본. 기본 키로 찾으므로 표본 크기만큼만 읽는다
+    String sampledCountFrom() {
+        return " from (select * from member where member_id in" + SAMPLE_IDS + ") m"
+                + (teamJoinNeeded ? TEAM_JOIN : "");
+    }
+
+    String where() {
+        return where.toString();
+    }
+
+    <Q extends Query> Q bind(Q query) {
+        parameters.forEach(query::setParameter);
+        return query;
+    }
+}
@@ -0,0 +1,22 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import study.querydsl.entity.Team;
+
+import java.util.List;
+
+public interface TeamRepository extends JpaRepository<Team, Long>, TeamRepositoryCustom {
+
+    // 팀 이름 -> id 는 쿼리 캐시로 해결 (team 테이블이 바뀌면 Hibernate 가 알아서 무효화). 회원 검색의 count 쿼리가 쓴다
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "team-name-query")
+    })
+    @Query("select t.id from Team t where t.name = :name")
+    List<Long> findIdsByName(@Param("name") String name);
+}
@@ -0,0 +1,12 @@
+package study.querydsl.repository;
+
+import org.springframework.data.domain.Pageable;
+import study.querydsl.entity.Team;
+
+import java.util.List;
+
+public interface TeamRepositoryCustom {
+
+    // 팀 N개와 소속 회원 전부를 쿼리 2번(팀 페이지, 회원 fetch join)으로 읽는다
+    List<Team> findTeamsWithMembers(Pageable pageable);
+}
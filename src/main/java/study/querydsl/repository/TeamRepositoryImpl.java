@@ -0,0 +1,42 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.Pageable;
+import study.querydsl.entity.Team;
+
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+public class TeamRepositoryImpl implements TeamRepositoryCustom {
+
+    private final JPAQueryFactory query;
+
+    public TeamRepositoryImpl(EntityManager em) {
+        this.query = new JPAQueryFactory(em);
+    }
+
+    @Override
+    public List<Team> findTeamsWithMembers(Pageable pageable) {
+        // 컬렉션 fetch join 에 페이징을 걸면 메모리에서 페이징하므로 팀 페이지를 먼저 자른다
+        List<Team> teams = query
+                .selectFrom(team)
+                .orderBy(team.id.asc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+        if (teams.isEmpty()) {
+            return teams;
+        }
+
+        // 이미 영속 상태인 팀들의 members 컬렉션이 이 쿼리 결과로 초기화된다
+        query
+                .selectFrom(team).distinct()
+                .leftJoin(team.members, member).fetchJoin()
+                .where(team.in(teams))
+                .fetch();
+        return teams;
+    }
+}
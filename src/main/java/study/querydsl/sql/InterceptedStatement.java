@@ -0,0 +1,9 @@
+package study.querydsl.sql;
+
+import java.util.List;
+
+/**
+ * SqlCaptureListener#intercept() 가 실행 직전에 잡은 SQL 과 바인딩 값 (순서대로)
+ */
+public record InterceptedStatement(String sql, List<Object> parameters) {
+}
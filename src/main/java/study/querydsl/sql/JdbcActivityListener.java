@@ -0,0 +1,39 @@
+package study.querydsl.sql;
+
+import com.p6spy.engine.common.ConnectionInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * 스레드별로 실행한 SQL 수와 커넥션을 얻기까지 기다린 시간을 누적한다.
+ * 값은 계속 증가하기만 하므로 사용하는 쪽에서 전후 차이를 계산한다.
+ */
+@Component
+public class JdbcActivityListener extends SimpleJdbcEventListener {
+
+    private static final int STATEMENTS = 0;
+    private static final int CONNECTION_WAIT_NANOS = 1;
+
+    private final ThreadLocal<long[]> activity = ThreadLocal.withInitial(() -> new long[2]);
+
+    public long statementCount() {
+        return activity.get()[STATEMENTS];
+    }
+
+    public long connectionWaitNanos() {
+        return activity.get()[CONNECTION_WAIT_NANOS];
+    }
+
+    @Override
+    public void onAfterGetConnection(ConnectionInformation connectionInformation, SQLException e) {
+        activity.get()[CONNECTION_WAIT_NANOS] += connectionInformation.getTimeToGetConnectionNs();
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        activity.get()[STATEMENTS]++;
+    }
+}
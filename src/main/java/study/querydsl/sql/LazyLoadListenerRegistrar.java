@@ -0,0 +1,53 @@
+package study.querydsl.sql;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerGroup;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.LoadEventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 하이버네이트의 지연 로딩(프록시 초기화, 컬렉션 초기화) 리스너를 감싸서
+ * 그 안에서 실행된 select 만 NPlusOneDetector 가 세도록 한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class LazyLoadListenerRegistrar {
+
+    private final EntityManagerFactory emf;
+    private final NPlusOneDetector detector;
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+
+        wrap(registry.getEventListenerGroup(EventType.INIT_COLLECTION), delegate ->
+                event -> detector.lazyLoad(() -> delegate.onInitializeCollection(event)));
+        wrap(registry.getEventListenerGroup(EventType.LOAD), delegate -> (event, loadType) -> {
+            // 프록시 초기화(IMMEDIATE_LOAD)와 조인하지 않은 EAGER 연관(INTERNAL_LOAD_EAGER)만. em.find() 는 세지 않는다
+            if (loadType == LoadEventListener.IMMEDIATE_LOAD || loadType == LoadEventListener.INTERNAL_LOAD_EAGER) {
+                detector.lazyLoad(() -> delegate.onLoad(event, loadType));
+            } else {
+                delegate.onLoad(event, loadType);
+            }
+        });
+    }
+
+    private static <T> void wrap(EventListenerGroup<T> group, Function<T, T> wrapper) {
+        List<T> delegates = new ArrayList<>();
+        group.listeners().forEach(delegates::add);
+        group.clear();
+        delegates.forEach(delegate -> group.appendListener(wrapper.apply(delegate)));
+    }
+}
@@ -0,0 +1,117 @@
+package study.querydsl.sql;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 한 요청(또는 트랜잭션) 안에서 지연 로딩이 같은 모양의 select 를 threshold 번 이상 실행하면 N+1 로 보고 알린다.
+ * fetchJoinNo 테스트처럼 지연 로딩이 행마다 쿼리를 날리는 경우가 대표적이다.
+ * 청크 단위 id 조회, 배치 검색, 페이징처럼 코드가 일부러 반복하는 쿼리는 N+1 이 아니므로
+ * 지연 로딩(LazyLoadListenerRegistrar) 안에서 실행된 select 만 센다.
+ *
+ * <p>범위는 NPlusOneRequestFilter 가 연 요청 단위이고, 요청 밖이면 현재 트랜잭션 단위다.
+ * 둘 다 없으면 세지 않는다. nplusone.fail-on-detection=true 면 예외를 던져 테스트를 실패시킨다.
+ */
+@Slf4j
+@Component
+public class NPlusOneDetector extends SimpleJdbcEventListener {
+
+    private final ThreadLocal<Map<String, Integer>> scope = new ThreadLocal<>();
+    private final ThreadLocal<int[]> lazyLoadDepth = ThreadLocal.withInitial(() -> new int[1]);
+    private final ObjectProvider<MeterRegistry> registry; // DataSource 보다 먼저 만들어지지 않게 지연 조회
+    private final int threshold;
+    private final boolean failOnDetection;
+
+    public NPlusOneDetector(ObjectProvider<MeterRegistry> registry,
+                            @Value("${nplusone.threshold:5}") int threshold,
+                            @Value("${nplusone.fail-on-detection:false}") boolean failOnDetection) {
+        this.registry = registry;
+        this.threshold = threshold;
+        this.failOnDetection = failOnDetection;
+    }
+
+    public void begin() {
+        scope.set(new HashMap<>());
+    }
+
+    public void end() {
+        scope.remove();
+    }
+
+    /**
+     * load 안에서 실행되는 select 를 지연 로딩으로 센다. (컬렉션 초기화가 프록시 초기화를 부르는 식으로 겹칠 수 있다)
+     */
+    void lazyLoad(Runnable load) {
+        int[] depth = lazyLoadDepth.get();
+        depth[0]++;
+        try {
+            load.run();
+        } finally {
+            depth[0]--;
+        }
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        String sql = statementInformation.getSql();
+        if (lazyLoadDepth.get()[0] == 0 || sql == null || !sql.strip().toLowerCase(Locale.ROOT).startsWith("select")) {
+            return;
+        }
+        Map<String, Integer> counts = currentScope();
+        if (counts == null) {
+            return;
+        }
+
+        String fingerprint = SqlFingerprint.of(sql);
+        int count = counts.merge(fingerprint, 1, Integer::sum);
+        if (count < threshold) {
+            return;
+        }
+
+        registry.ifAvailable(meters -> meters.counter("sql.nplusone.statements").increment());
+        if (count == threshold) {
+            report(fingerprint, count);
+        }
+    }
+
+    private void report(String fingerprint, int count) {
+        registry.ifAvailable(meters -> meters.counter("sql.nplusone.detected").increment());
+
+        String message = "N+1 의심: 같은 select 가 " + count + "번 실행되었습니다. " + fingerprint;
+        log.warn(message, new Throwable("N+1 access site"));
+        if (failOnDetection) {
+            throw new NPlusOneQueryException(message);
+        }
+    }
+
+    private Map<String, Integer> currentScope() {
+        Map<String, Integer> counts = scope.get();
+        if (counts != null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return counts;
+        }
+
+        Map<String, Integer> transactionCounts = new HashMap<>();
+        scope.set(transactionCounts);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (scope.get() == transactionCounts) {
+                    scope.remove();
+                }
+            }
+        });
+        return transactionCounts;
+    }
+}
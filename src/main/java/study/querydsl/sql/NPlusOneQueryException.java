@@ -0,0 +1,12 @@
+package study.querydsl.sql;
+
+/**
+ * RuntimeException 을 그대로 상속한다. IllegalStateException 이면 @Repository 의 예외 변환이
+ * InvalidDataAccessApiUsageException 으로 바꿔 버려 호출한 쪽에서 이 타입으로 잡을 수 없다.
+ */
+public class NPlusOneQueryException extends RuntimeException {
+
+    public NPlusOneQueryException(String message) {
+        super(message);
+    }
+}
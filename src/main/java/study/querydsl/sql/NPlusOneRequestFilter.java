@@ -0,0 +1,32 @@
+package study.querydsl.sql;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * 요청 하나를 N+1 감지 범위로 묶는다. (OSIV 로 트랜잭션 밖에서 일어나는 지연 로딩까지 포함)
+ */
+@Component
+@RequiredArgsConstructor
+public class NPlusOneRequestFilter extends OncePerRequestFilter {
+
+    private final NPlusOneDetector detector;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        detector.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            detector.end();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package study.querydsl.sql;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberSearchQueryCache;
+
+import java.util.List;
+
+/**
+ * 검색 조건으로 Hibernate 가 실제로 만드는 SQL 의 H2 EXPLAIN 결과를 돌려준다.
+ * search() 가 쓰는 쿼리를 실행 직전에 잡아서(SqlCaptureListener#intercept) 검색은 DB 에 보내지 않고,
+ * 그 SQL 을 같은 바인딩 값으로 EXPLAIN 만 실행한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class QueryPlanExplainer {
+
+    private final SqlCaptureListener sqlCapture;
+    private final MemberSearchQueryCache searchQueryCache;
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<String> explainSearch(MemberSearchCondition condition) {
+        InterceptedStatement statement = sqlCapture.intercept(() -> searchQueryCache.search(condition.normalized()));
+        if (statement == null) {
+            return List.of();
+        }
+        return List.of(jdbcTemplate.queryForObject(
+                "explain " + statement.sql(), String.class, statement.parameters().toArray()));
+    }
+}
@@ -0,0 +1,104 @@
+package study.querydsl.sql;
+
+import com.p6spy.engine.common.PreparedStatementInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * p6spy 리스너. capture() 안에서 현재 스레드가 실행한 SQL 을 바인딩 값이 채워진 형태로 모은다.
+ * p6spy 스타터가 JdbcEventListener 빈을 자동으로 등록한다.
+ */
+@Component
+public class SqlCaptureListener extends SimpleJdbcEventListener {
+
+    private final ThreadLocal<List<String>> captured = new ThreadLocal<>();
+    private final ThreadLocal<Intercepting> intercepting = new ThreadLocal<>();
+
+    public List<String> capture(Runnable action) {
+        List<String> statements = new ArrayList<>();
+        captured.set(statements);
+        try {
+            action.run();
+        } finally {
+            captured.remove();
+        }
+        return statements;
+    }
+
+    /**
+     * action 이 처음 실행하려는 SQL 을 (? 자리 그대로) 바인딩 값과 함께 잡고, DB 에 보내기 전에 멈춘다.
+     * action 은 그 SQL 의 결과를 받지 못하고 중단된다.
+     *
+     * @return SQL 을 실행하지 않고 끝났으면 null
+     */
+    public InterceptedStatement intercept(Runnable action) {
+        Intercepting current = new Intercepting();
+        intercepting.set(current);
+        try {
+            action.run();
+        } catch (RuntimeException e) {
+            if (current.statement == null) {
+                throw e;
+            }
+        } finally {
+            intercepting.remove();
+        }
+        return current.statement;
+    }
+
+    @Override
+    public void onBeforeAnyExecute(StatementInformation statementInformation) {
+        Intercepting current = intercepting.get();
+        if (current != null && current.statement == null) {
+            List<Object> parameters = statementInformation == current.binding
+                    ? new ArrayList<>(current.parameters.values()) : List.<Object>of();
+            current.statement = new InterceptedStatement(statementInformation.getSql(), parameters);
+            throw new StatementInterceptedException();
+        }
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        List<String> statements = captured.get();
+        Intercepting current = intercepting.get();
+        if (statements != null && (current == null || current.statement == null)) {
+            statements.add(statementInformation.getSqlWithValues());
+        }
+    }
+
+    // 바인딩 값은 실행 직전에 문장 정보에서 꺼낼 수 없으므로 set 될 때마다 모은다
+    @Override
+    public void onAfterPreparedStatementSet(PreparedStatementInformation statementInformation,
+                                            int parameterIndex, Object value, SQLException e) {
+        Intercepting current = intercepting.get();
+        if (current == null) {
+            return;
+        }
+        if (current.binding != statementInformation) {
+            current.binding = statementInformation;
+            current.parameters.clear();
+        }
+        current.parameters.put(parameterIndex, value);
+    }
+
+    private static final class Intercepting {
+        private StatementInformation binding;
+        private final Map<Integer, Object> parameters = new TreeMap<>();
+        private InterceptedStatement statement;
+    }
+
+    // intercept() 가 SQL 실행을 막을 때 던진다. intercept() 밖으로는 나가지 않는다
+    private static final class StatementInterceptedException extends RuntimeException {
+
+        StatementInterceptedException() {
+            super("statement intercepted", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package study.querydsl.sql;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * 값만 다른 SQL 을 같은 것으로 묶기 위한 정규화.
+ * 문자열/숫자 리터럴은 ? 로, 길이가 다른 IN 목록은 in (?+) 로 바꾸고 공백과 대소문자를 맞춘다.
+ */
+public final class SqlFingerprint {
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern IN_LIST = Pattern.compile("\\bin \\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+
+    private SqlFingerprint() {
+    }
+
+    public static String of(String sql) {
+        String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = WHITESPACE.matcher(normalized).replaceAll(" ").strip().toLowerCase(Locale.ROOT);
+        return IN_LIST.matcher(normalized).replaceAll("in (?+)");
+    }
+}
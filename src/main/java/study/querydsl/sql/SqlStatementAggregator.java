@@ -0,0 +1,67 @@
+package study.querydsl.sql;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * p6spy 로 실행되는 모든 SQL 을 fingerprint 별로 집계한다.
+ * slowThreshold 를 넘은 SQL 은 바인딩 값과 함께 로그를 남긴다.
+ */
+@Slf4j
+@Component
+public class SqlStatementAggregator extends SimpleJdbcEventListener {
+
+    private final Map<String, SqlStatementStats> statistics = new ConcurrentHashMap<>();
+    private final long slowThresholdNanos;
+    private final int maxFingerprints;
+
+    public SqlStatementAggregator(@Value("${sql.slow-threshold:200ms}") Duration slowThreshold,
+                                  @Value("${sql.max-fingerprints:1000}") int maxFingerprints) {
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.maxFingerprints = maxFingerprints;
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        String sql = statementInformation.getSql();
+        if (sql == null || sql.isBlank()) {
+            return;
+        }
+
+        String fingerprint = SqlFingerprint.of(sql);
+        SqlStatementStats stats = statistics.get(fingerprint);
+        if (stats == null) {
+            // 동적 SQL 이 끝없이 늘어나도 메모리를 다 쓰지 않게 개수를 제한
+            if (statistics.size() >= maxFingerprints) {
+                return;
+            }
+            stats = statistics.computeIfAbsent(fingerprint, SqlStatementStats::new);
+        }
+        stats.record(timeElapsedNanos);
+
+        if (timeElapsedNanos >= slowThresholdNanos) {
+            log.warn("slow query {} ms: {}", timeElapsedNanos / 1_000_000, statementInformation.getSqlWithValues());
+        }
+    }
+
+    public List<SqlStatementStats> top(int limit) {
+        return statistics.values().stream()
+                .sorted(Comparator.comparingLong(SqlStatementStats::totalNanos).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    public void reset() {
+        statistics.clear();
+    }
+}
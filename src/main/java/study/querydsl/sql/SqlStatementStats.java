@@ -0,0 +1,85 @@
+package study.querydsl.sql;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * fingerprint 하나의 실행 통계. 백분위는 최근 WINDOW 번의 실행 시간으로 계산한다.
+ */
+public class SqlStatementStats {
+
+    private static final int WINDOW = 1024;
+
+    @Getter
+    private final String fingerprint;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final long[] recentNanos = new long[WINDOW];
+    private final AtomicLong recorded = new AtomicLong();
+
+    SqlStatementStats(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    void record(long elapsedNanos) {
+        count.increment();
+        totalNanos.add(elapsedNanos);
+        maxNanos.accumulate(elapsedNanos);
+        recentNanos[(int) (recorded.getAndIncrement() % WINDOW)] = elapsedNanos;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getTotalMillis() {
+        return toMillis(totalNanos.sum());
+    }
+
+    public double getMeanMillis() {
+        long count = getCount();
+        return count == 0 ? 0 : getTotalMillis() / count;
+    }
+
+    public double getMaxMillis() {
+        return toMillis(maxNanos.get());
+    }
+
+    public double getP50Millis() {
+        return percentileMillis(0.50);
+    }
+
+    public double getP95Millis() {
+        return percentileMillis(0.95);
+    }
+
+    public double getP99Millis() {
+        return percentileMillis(0.99);
+    }
+
+    long totalNanos() {
+        return totalNanos.sum();
+    }
+
+    // 기록 중인 값과 겹쳐도 통계용이라 무시한다
+    private double percentileMillis(double percentile) {
+        int size = (int) Math.min(recorded.get(), WINDOW);
+        if (size == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(recentNanos, size);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * size) - 1;
+        return toMillis(sorted[Math.max(index, 0)]);
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,134 @@
+package study.querydsl.support;
+
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * DB 에서 한 번 읽어 만든 메모리 상태(S)를 커밋된 변경 이벤트로 조금씩 고쳐 가며 유지한다.
+ *
+ * <p>처음 read() 할 때 loader 로 만들고, invalidate() 하면 버렸다가 다음 read() 때 다시 만든다.
+ * 만드는 동안 apply() 된 변경은 모아 두었다가 다 만든 뒤 순서대로 적용하므로 그 사이의 커밋을 놓치지 않는다.
+ * loader 는 커밋 이후(AFTER_COMMIT)에 호출되어도 되도록 새 읽기 전용 트랜잭션에서 실행한다.
+ */
+public final class CommittedView<S> {
+
+    private final TransactionTemplate loadTemplate;
+    private final Supplier<S> loader;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object loadMonitor = new Object();
+    private S state; // null 이면 다음 read() 때 만든다
+    private List<Consumer<S>> pending; // 만드는 중에만 null 이 아니다
+    private boolean invalidatedWhileLoading;
+
+    public CommittedView(PlatformTransactionManager transactionManager, Supplier<S> loader) {
+        this.loadTemplate = new TransactionTemplate(transactionManager);
+        this.loadTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.loadTemplate.setReadOnly(true);
+        this.loader = loader;
+    }
+
+    public <T> T read(Function<S, T> reader) {
+        while (true) {
+            lock.readLock().lock();
+            try {
+                if (state != null) {
+                    return reader.apply(state);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            load();
+        }
+    }
+
+    /**
+     * 다시 만들지 않고 지금 상태만 본다. 아직 만들어지지 않았으면 absent 를 돌려준다.
+     */
+    public <T> T peek(Function<S, T> reader, T absent) {
+        lock.readLock().lock();
+        try {
+            return state != null ? reader.apply(state) : absent;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 만들어지지 않았고 만드는 중도 아니면 true. 이때 apply() 한 변경은 버려진다.
+     */
+    public boolean isUnloaded() {
+        lock.readLock().lock();
+        try {
+            return state == null && pending == null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void apply(Consumer<S> change) {
+        lock.writeLock().lock();
+        try {
+            if (pending != null) {
+                pending.add(change);
+            } else if (state != null) {
+                change.accept(state);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            state = null;
+            if (pending != null) {
+                invalidatedWhileLoading = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void load() {
+        synchronized (loadMonitor) {
+            lock.writeLock().lock();
+            try {
+                if (state != null) {
+                    return;
+                }
+                pending = new ArrayList<>();
+                invalidatedWhileLoading = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            S loaded = null;
+            try {
+                loaded = loadTemplate.execute(status -> loader.get());
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    if (loaded != null && !invalidatedWhileLoading) {
+                        for (Consumer<S> change : pending) {
+                            change.accept(loaded);
+                        }
+                        state = loaded;
+                    }
+                    pending = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+    }
+}
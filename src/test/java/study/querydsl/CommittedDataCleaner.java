@@ -0,0 +1,28 @@
+package study.querydsl;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.MemberChangedEvent;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.TeamRepository;
+
+/**
+ * 테스트 데이터를 커밋하는 테스트의 뒷정리.
+ * deleteAllInBatch 는 엔티티 리스너를 거치지 않아 이벤트가 나가지 않으므로, 지운 뒤 BULK 이벤트를 발행해
+ * 이벤트로 유지되는 캐시(count 캐시, 검색 결과 캐시, UsernameIndex, MemberSnapshot, TeamStatsAggregate)를 모두 비운다.
+ */
+@Component
+@RequiredArgsConstructor
+public class CommittedDataCleaner {
+
+    private final MemberRepository memberRepository;
+    private final TeamRepository teamRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public void clean() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+        eventPublisher.publishEvent(MemberChangedEvent.bulk());
+    }
+}
@@ -0,0 +1,97 @@
+package study.querydsl.aggregate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.CommittedDataCleaner;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.TeamRepository;
+import study.querydsl.sql.SqlCaptureListener;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 스냅샷은 커밋된 변경만 반영하므로 테스트 데이터를 커밋하고 끝나면 지운다.
+ */
+@SpringBootTest
+class MemberSnapshotTest {
+
+    @Autowired MemberSnapshot memberSnapshot;
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+    @Autowired SqlCaptureListener sqlCaptureListener;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired CommittedDataCleaner committedDataCleaner;
+
+    Team teamA;
+    Team teamB;
+
+    @BeforeEach
+    void before() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            teamA = teamRepository.save(new Team("teamA"));
+            teamB = teamRepository.save(new Team("teamB"));
+
+            memberRepository.save(new Member("member1", 20, teamA));
+            memberRepository.save(new Member("member2", 21, teamA));
+            memberRepository.save(new Member("member3", 22, teamB));
+            memberRepository.save(new Member("member4", 23, teamB));
+        });
+        memberSnapshot.invalidate(); // 다른 테스트에서 읽어 둔 스냅샷을 버린다
+    }
+
+    @AfterEach
+    void after() {
+        committedDataCleaner.clean();
+    }
+
+    @Test
+    void aggregation() throws Exception {
+        //when
+        AgeStats overall = memberSnapshot.overall();
+        List<AgeStats> byTeam = memberSnapshot.byTeam();
+        List<AgeHistogram> histogram = memberSnapshot.histogramByTeam(10);
+
+        //then
+        assertThat(overall.getCount()).isEqualTo(4);
+        assertThat(overall.getSum()).isEqualTo(86);
+        assertThat(overall.getAvg()).isEqualTo(21.5);
+        assertThat(overall.getMax()).isEqualTo(23);
+        assertThat(overall.getMin()).isEqualTo(20);
+
+        assertThat(byTeam).extracting("teamName").containsExactly("teamA", "teamB");
+        assertThat(byTeam).extracting("avg").containsExactly(20.5, 22.5);
+
+        assertThat(histogram.get(0).getCounts()).containsExactly(0, 0, 2);
+    }
+
+    @Test
+    void incrementalUpdate() throws Exception {
+        //given
+        memberSnapshot.overall(); // 여기서 한 번 전부 읽는다
+
+        //when
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            memberRepository.save(new Member("member5", 40, teamB));
+            memberRepository.delete(memberRepository.findByUsername("member1").get(0));
+        });
+
+        //then
+        List<String> statements = sqlCaptureListener.capture(() -> {
+            AgeStats overall = memberSnapshot.overall();
+            assertThat(overall.getCount()).isEqualTo(4);
+            assertThat(overall.getSum()).isEqualTo(106);
+            assertThat(memberSnapshot.byTeam()).extracting("count").containsExactly(1L, 3L);
+        });
+        assertThat(statements).isEmpty();
+    }
+}
@@ -0,0 +1,123 @@
+package study.querydsl.aggregate;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.CommittedDataCleaner;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.MemberChangedEvent;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.TeamRepository;
+import study.querydsl.sql.SqlCaptureListener;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 집계는 커밋된 변경만 반영하므로 테스트 데이터를 커밋하고 끝나면 지운다.
+ */
+@SpringBootTest
+class TeamStatsAggregateTest {
+
+    @Autowired EntityManager em;
+    @Autowired TeamStatsAggregate teamStatsAggregate;
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+    @Autowired SqlCaptureListener sqlCaptureListener;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired CommittedDataCleaner committedDataCleaner;
+
+    TransactionTemplate transactionTemplate;
+    Team teamA;
+    Team teamB;
+    Member member1;
+
+    @BeforeEach
+    void before() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            teamA = teamRepository.save(new Team("teamA"));
+            teamB = teamRepository.save(new Team("teamB"));
+
+            member1 = memberRepository.save(new Member("member1", 10, teamA));
+            memberRepository.save(new Member("member2", 20, teamA));
+            memberRepository.save(new Member("member3", 30, teamB));
+        });
+        teamStatsAggregate.invalidate(); // 다른 테스트에서 만든 집계를 버린다
+    }
+
+    @AfterEach
+    void after() {
+        committedDataCleaner.clean();
+    }
+
+    @Test
+    void stats() throws Exception {
+        //when
+        List<TeamStats> stats = teamStatsAggregate.stats();
+
+        //then
+        assertThat(stats).extracting("teamName").containsExactly("teamA", "teamB");
+        assertThat(stats).extracting("memberCount").containsExactly(2L, 1L);
+        assertThat(stats).extracting("avgAge").containsExactly(15.0, 30.0);
+    }
+
+    @Test
+    void changeAgeAndTeam() throws Exception {
+        //given
+        teamStatsAggregate.stats(); // 여기서 한 번 전부 읽는다
+
+        //when
+        transactionTemplate.executeWithoutResult(status -> {
+            Member findMember = em.find(Member.class, member1.getId());
+            findMember.changeAge(40);
+            findMember.changeTeam(em.find(Team.class, teamB.getId()));
+            memberRepository.save(new Member("member4", 50, teamA));
+        });
+
+        //then
+        List<String> statements = sqlCaptureListener.capture(() -> {
+            List<TeamStats> stats = teamStatsAggregate.stats();
+            assertThat(stats).extracting("memberCount").containsExactly(2L, 2L);
+            assertThat(stats).extracting("avgAge").containsExactly(35.0, 35.0);
+        });
+        assertThat(statements).isEmpty();
+    }
+
+    @Test
+    void removeMember() throws Exception {
+        //given
+        teamStatsAggregate.stats();
+
+        //when
+        transactionTemplate.executeWithoutResult(status ->
+                memberRepository.delete(em.find(Member.class, member1.getId())));
+
+        //then
+        List<TeamStats> stats = teamStatsAggregate.stats();
+        assertThat(stats).extracting("memberCount").containsExactly(1L, 1L);
+        assertThat(stats).extracting("avgAge").containsExactly(20.0, 30.0);
+    }
+
+    @Test
+    void replayedEventIsNoOp() throws Exception {
+        //given
+        teamStatsAggregate.stats();
+
+        //when
+        // 다시 읽는 동안 커밋된 저장이 읽은 데이터에도 들어 있고 이벤트로도 다시 오는 경우
+        teamStatsAggregate.onMemberChanged(MemberChangedEvent.of(MemberChangedEvent.Type.PERSIST, member1));
+
+        //then
+        List<TeamStats> stats = teamStatsAggregate.stats();
+        assertThat(stats).extracting("memberCount").containsExactly(2L, 1L);
+        assertThat(stats).extracting("avgAge").containsExactly(15.0, 30.0);
+    }
+}
@@ -0,0 +1,32 @@
+package study.querydsl.export;
+
+import org.junit.jupiter.api.Test;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberCsvWriterTest {
+
+    @Test
+    void writeRows() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // 버퍼를 작게 잡아서 행 중간에 여러 번 비워지게 한다
+        try (MemberCsvWriter writer = new MemberCsvWriter(Channels.newChannel(out), MemberCsvWriter.MIN_BUFFER_SIZE)) {
+            writer.write(new MemberTeamDto(1L, "member1", 10, 1L, "teamA"));
+            writer.write(new MemberTeamDto(2L, "비회원, \"VIP\"", 20, null, null));
+            writer.write(new MemberTeamDto(Long.MAX_VALUE, "😀\nline", 0, 3L, "팀B"));
+            assertThat(writer.rows()).isEqualTo(3);
+        }
+
+        assertThat(out.toString(UTF_8)).isEqualTo(
+                MemberCsvWriter.HEADER
+                        + "1,member1,10,1,teamA\n"
+                        + "2,\"비회원, \"\"VIP\"\"\",20,,\n"
+                        + Long.MAX_VALUE + ",\"😀\nline\",0,3,팀B\n");
+    }
+}
@@ -0,0 +1,77 @@
+package study.querydsl.export;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberExportServiceTest {
+
+    @Autowired EntityManager em;
+    @Autowired MemberExportService exportService;
+    @Value("${member.export.dir:${java.io.tmpdir}/member-export}") Path directory;
+
+    @Test
+    void export() throws Exception {
+        //given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(new Member("member3", 30));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        //when
+        MemberExport export = exportService.export(condition);
+
+        //then
+        Path file = exportService.find(export.getId()).orElseThrow();
+        try {
+            List<String> lines = Files.readAllLines(file, UTF_8);
+            assertThat(export.getRows()).isEqualTo(2);
+            assertThat(export.getBytes()).isEqualTo(Files.size(file));
+            assertThat(lines).containsExactly(
+                    "member_id,username,age,team_id,team_name",
+                    member1.getId() + ",member1,10," + teamA.getId() + ",teamA",
+                    member2.getId() + ",member2,20," + teamA.getId() + ",teamA");
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void deleteAbandonedPartFile() throws Exception {
+        //given
+        Files.createDirectories(directory);
+        Path abandoned = Files.writeString(directory.resolve("abandoned.csv.part"), "member_id");
+        Files.setLastModifiedTime(abandoned, FileTime.from(Instant.now().minus(Duration.ofDays(1))));
+
+        //when
+        MemberExport export = exportService.export(new MemberSearchCondition());
+
+        //then
+        assertThat(abandoned).doesNotExist();
+        Files.delete(exportService.find(export.getId()).orElseThrow());
+    }
+}
@@ -0,0 +1,178 @@
+package study.querydsl.index;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.CommittedDataCleaner;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberBulkMutator;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.TeamRepository;
+import study.querydsl.sql.SqlCaptureListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 색인은 커밋된 변경만 반영하고 쓰기 트랜잭션 밖에서만 쓰이므로 테스트 데이터를 커밋하고 끝나면 지운다.
+ */
+@SpringBootTest
+class UsernameIndexTest {
+
+    @Autowired UsernameIndex usernameIndex;
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+    @Autowired SqlCaptureListener sqlCaptureListener;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired CommittedDataCleaner committedDataCleaner;
+    @Autowired MemberBulkMutator memberBulkMutator;
+    @Autowired JPAQueryFactory query;
+
+    Member alice;
+    Member alicia;
+    Member bob;
+    Member malice;
+
+    @BeforeEach
+    void before() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Team teamA = teamRepository.save(new Team("teamA"));
+            alice = memberRepository.save(new Member("alice", 10, teamA));
+            alicia = memberRepository.save(new Member("alicia", 20, teamA));
+            bob = memberRepository.save(new Member("bob", 30, teamA));
+            malice = memberRepository.save(new Member("malice", 40, teamA));
+        });
+        usernameIndex.invalidate(); // 다른 테스트에서 읽어 둔 색인을 버린다
+    }
+
+    @AfterEach
+    void after() {
+        committedDataCleaner.clean();
+    }
+
+    @Test
+    void candidates() throws Exception {
+        //then
+        assertThat(usernameIndex.candidates("ali", null)).containsExactly(alice.getId(), alicia.getId());
+        assertThat(usernameIndex.candidates(null, "lic")).containsExactly(alice.getId(), alicia.getId(), malice.getId());
+        assertThat(usernameIndex.candidates("ali", "cia")).containsExactly(alicia.getId());
+        assertThat(usernameIndex.candidates("x", null)).isEmpty();
+        assertThat(usernameIndex.candidates(null, "li")).isNull(); // 세 글자 미만은 like 로 찾는다
+    }
+
+    @Test
+    void incrementalUpdate() throws Exception {
+        //given
+        usernameIndex.candidates("ali", null); // 여기서 한 번 전부 읽는다
+
+        //when
+        Member alina = new TransactionTemplate(transactionManager).execute(status ->
+                memberRepository.save(new Member("alina", 50)));
+        memberRepository.delete(alice);
+
+        //then
+        assertThat(usernameIndex.candidates("ali", null)).containsExactly(alicia.getId(), alina.getId());
+        assertThat(usernameIndex.candidates(null, "lic")).containsExactly(alicia.getId(), malice.getId());
+    }
+
+    @Test
+    void fallbackUntilWriteIsApplied() throws Exception {
+        //given
+        usernameIndex.candidates("ali", null);
+
+        //when
+        Member alina = new TransactionTemplate(transactionManager).execute(status -> {
+            Member saved = memberRepository.saveAndFlush(new Member("alina", 50));
+
+            //then
+            // 커밋되어 색인에 반영될 때까지는 다른 검색도 like 로 찾는다
+            assertThat(usernameIndex.candidates("ali", null)).isNull();
+            return saved;
+        });
+        assertThat(usernameIndex.candidates("ali", null)).containsExactly(alice.getId(), alicia.getId(), alina.getId());
+    }
+
+    @Test
+    void fallbackDuringBulkMutation() throws Exception {
+        //given
+        usernameIndex.candidates("ali", null);
+
+        //when
+        List<List<Long>> candidatesDuringRun = new ArrayList<>();
+        memberBulkMutator.execute(1,
+                (afterId, size) -> query
+                        .select(member.id)
+                        .from(member)
+                        .where(member.username.startsWith("ali"), afterId != null ? member.id.gt(afterId) : null)
+                        .orderBy(member.id.asc())
+                        .limit(size)
+                        .fetch(),
+                ids -> {
+                    candidatesDuringRun.add(usernameIndex.candidates("ali", null));
+                    return query.update(member).set(member.username, "bob").where(member.id.in(ids)).execute();
+                });
+
+        //then
+        // 청크 사이에도 바뀌기 전 색인으로 후보를 고르지 않는다
+        assertThat(candidatesDuringRun).hasSize(2).containsOnlyNulls();
+        assertThat(usernameIndex.candidates("ali", null)).isEmpty();
+    }
+
+    @Test
+    void searchWithIndex() throws Exception {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernameContains("lic");
+        condition.setAgeGoe(15);
+
+        //when
+        Page<MemberTeamDto> result = memberRepository.searchPageComplex(condition, PageRequest.of(0, 10));
+
+        //then
+        assertThat(result.getContent()).extracting("username").containsExactlyInAnyOrder("alicia", "malice");
+        assertThat(result.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    void noCandidateSkipsQuery() throws Exception {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernamePrefix("zed");
+
+        //when
+        List<List<MemberTeamDto>> result = new ArrayList<>();
+        List<String> statements = sqlCaptureListener.capture(() -> result.add(memberRepository.search(condition)));
+
+        //then
+        assertThat(statements).isEmpty();
+        assertThat(result.get(0)).isEmpty();
+    }
+
+    @Test
+    void likeEscape() throws Exception {
+        //given
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                memberRepository.save(new Member("100%_off", 50)));
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernameContains("%_");
+
+        //when
+        List<MemberTeamDto> result = memberRepository.search(condition);
+
+        //then
+        assertThat(result).extracting("username").containsExactly("100%_off");
+    }
+}
@@ -0,0 +1,60 @@
+package study.querydsl.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MethodMetricsAspectTest {
+
+    @Autowired EntityManager em;
+    @Autowired MeterRegistry registry;
+    @Autowired MemberJpaRepository memberJpaRepository;
+    @Autowired MemberRepository memberRepository;
+
+    @Test
+    void recordRepositoryMethods() throws Exception {
+        //given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.flush();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        //when
+        memberJpaRepository.search(condition);
+        memberRepository.findByUsername("member1");
+
+        //then
+        Timer latency = registry.find("method.latency")
+                .tags("method", "MemberJpaRepository.search", "shape", "2")
+                .timer();
+        DistributionSummary rows = registry.find("method.rows")
+                .tags("method", "MemberJpaRepository.search")
+                .summary();
+        DistributionSummary statements = registry.find("method.statements")
+                .tags("method", "MemberRepository.findByUsername")
+                .summary();
+
+        assertThat(latency).isNotNull();
+        assertThat(latency.count()).isGreaterThanOrEqualTo(1);
+        assertThat(rows.max()).isEqualTo(2);
+        assertThat(statements.totalAmount()).isGreaterThanOrEqualTo(1);
+    }
+}
@@ -0,0 +1,100 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.CommittedDataCleaner;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.index.UsernameIndex;
+import study.querydsl.sql.SqlCaptureListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * UsernameIndex 는 쓰기 트랜잭션 밖에서만 쓰이므로 테스트 데이터를 커밋하고 끝나면 지운다.
+ */
+@SpringBootTest
+class MemberBatchSearchIndexTest {
+
+    @Autowired MemberBatchSearch memberBatchSearch;
+    @Autowired UsernameIndex usernameIndex;
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+    @Autowired SqlCaptureListener sqlCaptureListener;
+    @Autowired MeterRegistry registry;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired CommittedDataCleaner committedDataCleaner;
+
+    Member alicia;
+    Member malice;
+
+    @BeforeEach
+    void before() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Team teamA = teamRepository.save(new Team("teamA"));
+            Team teamB = teamRepository.save(new Team("teamB"));
+            memberRepository.save(new Member("alice", 10, teamA));
+            alicia = memberRepository.save(new Member("alicia", 20, teamA));
+            malice = memberRepository.save(new Member("malice", 30, teamB));
+            memberRepository.save(new Member("bob", 40, teamB));
+        });
+    }
+
+    @AfterEach
+    void after() {
+        committedDataCleaner.clean();
+    }
+
+    @Test
+    void mergeWithIndexCandidates() throws Exception {
+        //given
+        List<MemberSearchCondition> conditions = List.of(
+                containsCondition("lic", "teamA", 15),
+                containsCondition("lic", "teamB", 15),
+                containsCondition("zed", "teamA", 15)); // 색인에 후보가 없다
+        usernameIndex.candidates(null, "lic"); // 색인을 미리 읽어 둔다
+        double hits = indexHits();
+
+        //when
+        List<List<List<MemberTeamDto>>> result = new ArrayList<>();
+        List<String> statements = sqlCaptureListener.capture(
+                () -> result.add(memberBatchSearch.search(conditions)));
+
+        //then
+        List<List<MemberTeamDto>> results = result.get(0);
+        assertThat(results.get(0)).extracting("memberId").containsExactly(alicia.getId());
+        assertThat(results.get(1)).extracting("memberId").containsExactly(malice.getId());
+        assertThat(results.get(2)).isEmpty();
+        assertThat(indexHits()).isEqualTo(hits + 3);
+
+        // 팀 이름만 다른 두 조건은 색인 후보로 좁힌 in 쿼리 하나, 후보가 없는 조건은 실행하지 않는다
+        assertThat(statements)
+                .filteredOn(sql -> sql.strip().toLowerCase(Locale.ROOT).startsWith("select"))
+                .singleElement()
+                .satisfies(sql -> assertThat(sql.toLowerCase(Locale.ROOT)).contains("member_id in"));
+    }
+
+    private static MemberSearchCondition containsCondition(String usernameContains, String teamName, int ageGoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernameContains(usernameContains);
+        condition.setTeamName(teamName);
+        condition.setAgeGoe(ageGoe);
+        return condition;
+    }
+
+    private double indexHits() {
+        return registry.counter("member.search.planner.username.index", "method", "batch", "result", "hit").count();
+    }
+}
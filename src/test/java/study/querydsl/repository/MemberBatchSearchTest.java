@@ -0,0 +1,140 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.sql.SqlCaptureListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class MemberBatchSearchTest {
+
+    @Autowired EntityManager em;
+    @Autowired MemberBatchSearch memberBatchSearch;
+    @Autowired MemberJpaRepository memberJpaRepository;
+    @Autowired SqlCaptureListener sqlCaptureListener;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        Team teamC = new Team("teamC");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(teamC);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.persist(new Member("member5", 50));
+        em.flush();
+    }
+
+    @Test
+    void mergeSameShape() throws Exception {
+        //given
+        List<MemberSearchCondition> conditions = List.of(
+                teamCondition("teamA", 15),
+                teamCondition("teamB", 15),
+                teamCondition("teamC", 15),
+                teamCondition("teamA", 15), // 같은 조건
+                ageCondition(35, 60),
+                ageCondition(30, 20)); // 빈 결과
+
+        //when
+        List<List<List<MemberTeamDto>>> result = new ArrayList<>();
+        List<String> statements = sqlCaptureListener.capture(
+                () -> result.add(memberBatchSearch.search(conditions)));
+
+        //then
+        List<List<MemberTeamDto>> results = result.get(0);
+        assertThat(results).hasSize(6);
+        assertThat(results.get(0)).extracting("username").containsExactly("member2");
+        assertThat(results.get(1)).extracting("username").containsExactlyInAnyOrder("member3", "member4");
+        assertThat(results.get(2)).isEmpty();
+        assertThat(results.get(3)).extracting("username").containsExactly("member2");
+        assertThat(results.get(4)).extracting("username").containsExactlyInAnyOrder("member4", "member5");
+        assertThat(results.get(5)).isEmpty();
+
+        // 팀 이름만 다른 4개는 in 쿼리 하나, 나이 조건 하나, 빈 결과는 실행하지 않는다
+        assertThat(statements)
+                .filteredOn(sql -> sql.strip().toLowerCase(Locale.ROOT).startsWith("select"))
+                .hasSize(2);
+    }
+
+    @Test
+    void sameResultAsSearch() throws Exception {
+        //given
+        List<MemberSearchCondition> conditions = List.of(
+                usernameCondition("member1"),
+                usernameCondition("member4"),
+                usernameCondition("nobody"),
+                teamCondition("teamB", 0));
+
+        //when
+        List<List<MemberTeamDto>> results = memberBatchSearch.search(conditions);
+
+        //then
+        for (int i = 0; i < conditions.size(); i++) {
+            assertThat(results.get(i)).containsExactlyInAnyOrderElementsOf(memberJpaRepository.search(conditions.get(i)));
+        }
+    }
+
+    @Test
+    void tooManyConditions() throws Exception {
+        //given
+        List<MemberSearchCondition> conditions =
+                Collections.nCopies(MemberBatchSearch.MAX_CONDITIONS + 1, new MemberSearchCondition());
+
+        //then
+        assertThatThrownBy(() -> memberBatchSearch.search(conditions))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void nullCondition() throws Exception {
+        //given
+        List<MemberSearchCondition> conditions = Arrays.asList(usernameCondition("member1"), null);
+
+        //then
+        assertThatThrownBy(() -> memberBatchSearch.search(conditions))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static MemberSearchCondition teamCondition(String teamName, int ageGoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(teamName);
+        condition.setAgeGoe(ageGoe);
+        return condition;
+    }
+
+    private static MemberSearchCondition usernameCondition(String username) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(username);
+        return condition;
+    }
+
+    private static MemberSearchCondition ageCondition(int ageGoe, int ageLoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(ageGoe);
+        condition.setAgeLoe(ageLoe);
+        return condition;
+    }
+}
@@ -0,0 +1,134 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.CommittedDataCleaner;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.MemberChangedEvent;
+import study.querydsl.entity.Team;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 청크마다 새 트랜잭션에서 커밋하므로 테스트 데이터를 커밋하고 끝나면 지운다.
+ */
+@SpringBootTest
+@RecordApplicationEvents
+class MemberBulkMutationTest {
+
+    @Autowired EntityManagerFactory emf;
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired ApplicationEvents events;
+    @Autowired CommittedDataCleaner committedDataCleaner;
+
+    @BeforeEach
+    void before() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Team teamA = teamRepository.save(new Team("teamA"));
+            Team teamB = teamRepository.save(new Team("teamB"));
+
+            memberRepository.save(new Member("member1", 10, teamA));
+            memberRepository.save(new Member("member2", 20, teamA));
+            memberRepository.save(new Member("member3", 30, teamA));
+            memberRepository.save(new Member("member4", 40, teamB));
+            memberRepository.save(new Member("member5", 50, teamB));
+        });
+    }
+
+    @AfterEach
+    void after() {
+        committedDataCleaner.clean();
+    }
+
+    @Test
+    void bulkAddAge() throws Exception {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        //when
+        long count = memberRepository.bulkAddAge(condition, 1, 2); // 2, 2 건씩 청크 두 번
+
+        //then
+        assertThat(count).isEqualTo(4);
+        assertThat(memberRepository.findAll())
+                .extracting("age")
+                .containsExactlyInAnyOrder(10, 21, 31, 41, 51);
+        assertThat(events.stream(MemberChangedEvent.class).filter(MemberChangedEvent::isBulk)).hasSize(1);
+    }
+
+    @Test
+    void bulkDelete() throws Exception {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        //when
+        long count = memberRepository.bulkDelete(condition, 2);
+
+        //then
+        assertThat(count).isEqualTo(3);
+        assertThat(memberRepository.findAll())
+                .extracting("username")
+                .containsExactlyInAnyOrder("member4", "member5");
+    }
+
+    @Test
+    void bulkUpdateDetachesChangedMembers() throws Exception {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeLoe(20);
+
+        // OSIV 처럼 트랜잭션 없이 영속성 컨텍스트만 열어 둔다
+        EntityManager osiv = emf.createEntityManager();
+        TransactionSynchronizationManager.bindResource(emf, new EntityManagerHolder(osiv));
+        try {
+            Member member1 = memberRepository.findByUsername("member1").get(0);
+            Member member3 = memberRepository.findByUsername("member3").get(0);
+
+            //when
+            long count = memberRepository.bulkUpdateUsername(condition, "비회원", 1);
+
+            //then
+            assertThat(count).isEqualTo(2);
+            assertThat(osiv.contains(member1)).isFalse(); // clear 없이도 다시 읽으면 바뀐 값
+            assertThat(osiv.contains(member3)).isTrue();
+            assertThat(osiv.find(Member.class, member1.getId()).getUsername()).isEqualTo("비회원");
+        } finally {
+            TransactionSynchronizationManager.unbindResource(emf);
+            osiv.close();
+        }
+    }
+
+    @Test
+    void rejectedInsideTransaction() throws Exception {
+        assertThatThrownBy(() -> new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> memberRepository.bulkDelete(new MemberSearchCondition(), 2)))
+                .isInstanceOf(InvalidDataAccessApiUsageException.class) // 리포지토리 프록시의 예외 변환
+                .hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(memberRepository.count()).isEqualTo(5);
+    }
+
+    @Test
+    void chunkSizeMustBePositive() throws Exception {
+        assertThatThrownBy(() -> memberRepository.bulkDelete(new MemberSearchCondition(), 0))
+                .isInstanceOf(InvalidDataAccessApiUsageException.class)
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,100 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.ApproximatePage;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"member.count.approximate-threshold=3", "member.count.sample-size=5",
+        "member.count.sample-seed=1"})
+@Transactional
+class MemberCountEstimatorTest {
+
+    @Autowired EntityManager em;
+    @Autowired MemberCountEstimator countEstimator;
+    @Autowired MemberRepository memberRepository;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        for (int i = 1; i <= 10; i++) {
+            em.persist(new Member("member" + i, i * 10, i <= 8 ? teamA : teamB));
+        }
+        em.flush();
+    }
+
+    @Test
+    void exactUnderThreshold() throws Exception {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+
+        //when
+        MemberCountEstimate estimate = countEstimator.count(condition);
+
+        //then
+        assertThat(estimate.isApproximate()).isFalse();
+        assertThat(estimate.getTotal()).isEqualTo(2);
+    }
+
+    @Test
+    void approximateOverThreshold() throws Exception {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        //when
+        MemberCountEstimate estimate = countEstimator.count(condition);
+
+        //then
+        assertThat(estimate.isApproximate()).isTrue();
+        assertThat(estimate.getTotal()).isGreaterThan(3);
+    }
+
+    @Test
+    void searchPageApproximate() throws Exception {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        //when
+        Page<MemberTeamDto> firstPage = memberRepository.searchPageApproximate(condition, PageRequest.of(0, 2));
+        Page<MemberTeamDto> lastPage = memberRepository.searchPageApproximate(condition, PageRequest.of(2, 3));
+
+        //then
+        assertThat(firstPage.getContent()).hasSize(2);
+        assertThat(((ApproximatePage<MemberTeamDto>) firstPage).isTotalApproximate()).isTrue();
+        assertThat(((ApproximatePage<MemberTeamDto>) lastPage).isTotalApproximate()).isFalse();
+        assertThat(lastPage.getTotalElements()).isEqualTo(8);
+    }
+
+    @Test
+    void sampleIsSpreadOverIdRange() throws Exception {
+        //given
+        // teamA 회원 8명이 id 앞쪽에 몰려 있다. 앞쪽 5건만 읽으면 전부 teamA 라 10명으로 추정한다
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        //when
+        MemberCountEstimate estimate = countEstimator.count(condition);
+
+        //then
+        assertThat(estimate.isApproximate()).isTrue();
+        assertThat(estimate.getTotal()).isBetween(4L, 9L);
+    }
+}
@@ -1,6 +1,7 @@
 package study.querydsl.repository;
 
 import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,6 +12,7 @@ import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.*;
@@ -122,4 +124,87 @@ class MemberJpaRepositoryTest {
         assertThat(result).extracting("username").containsExactly("member4");
     }
 
-}
\ No newline at end of file
+    @Test
+    void searchStream() throws Exception {
+        //given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+
+        //when
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+
+        List<MemberTeamDto> result = new ArrayList<>();
+        memberRepository.searchStream(condition, result::add);
+
+        //then
+        assertThat(result).extracting("username").containsExactly("member3", "member4");
+    }
+
+    @Test
+    void findAllReadOnly() throws Exception {
+        //given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.flush();
+        em.clear();
+
+        //when
+        Member findMember = memberRepository.findAllReadOnly().get(0);
+        findMember.changeTeam(em.getReference(Team.class, teamB.getId()));
+        em.flush(); // 읽기 전용이라 update 가 나가지 않는다
+        em.clear();
+
+        //then
+        assertThat(em.find(Member.class, findMember.getId()).getTeam().getName()).isEqualTo("teamA");
+    }
+
+    @Test
+    void findAllInWriteTransaction() throws Exception {
+        //given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.flush();
+        em.clear();
+
+        //when
+        Member findMember = memberRepository.findAll().get(0);
+        findMember.changeTeam(em.getReference(Team.class, teamB.getId()));
+        em.flush(); // 바깥 트랜잭션이 쓰기 트랜잭션이므로 update 가 나간다
+        em.clear();
+
+        //then
+        assertThat(em.find(Member.class, findMember.getId()).getTeam().getName()).isEqualTo("teamB");
+    }
+
+    @Test
+    void findByUsernameReadOnly() throws Exception {
+        //given
+        em.persist(new Member("member1", 10));
+        em.flush();
+        em.clear();
+
+        //when
+        Session session = em.unwrap(Session.class);
+        boolean readOnly = session.isReadOnly(memberRepository.findByUsernameReadOnly("member1").get(0));
+        em.clear();
+        boolean writable = !session.isReadOnly(memberRepository.findByUsername_QueryDsl("member1").get(0));
+
+        //then
+        assertThat(readOnly).isTrue();
+        assertThat(writable).isTrue();
+    }
+}
@@ -0,0 +1,98 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.CommittedDataCleaner;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * count 쿼리가 다른 커넥션에서 실행되므로 테스트 데이터를 커밋하고 끝나면 지운다.
+ */
+@SpringBootTest
+class MemberRepositoryParallelCountTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired CommittedDataCleaner committedDataCleaner;
+
+    @BeforeEach
+    void before() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Team teamA = teamRepository.save(new Team("teamA"));
+            Team teamB = teamRepository.save(new Team("teamB"));
+
+            memberRepository.save(new Member("member1", 10, teamA));
+            memberRepository.save(new Member("member2", 20, teamA));
+            memberRepository.save(new Member("member3", 30, teamB));
+            memberRepository.save(new Member("member4", 40, teamB));
+        });
+    }
+
+    @AfterEach
+    void after() {
+        committedDataCleaner.clean();
+    }
+
+    @Test
+    void searchPageParallel() throws Exception {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        //when
+        Page<MemberTeamDto> result = memberRepository.searchPageParallel(condition, PageRequest.of(0, 2));
+
+        //then
+        assertThat(result.getContent()).extracting("username").containsExactly("member2", "member3");
+        assertThat(result.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    void searchPageParallelWithoutCount() throws Exception {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        //when
+        Page<MemberTeamDto> result = memberRepository.searchPageParallel(condition, PageRequest.of(0, 10));
+
+        //then
+        assertThat(result.getContent()).extracting("username").containsExactly("member1", "member2");
+        assertThat(result.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    void searchPageParallelInWriteTransaction() throws Exception {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        //when
+        Page<MemberTeamDto> result = new TransactionTemplate(transactionManager).execute(status -> {
+            Team teamA = teamRepository.findAll().stream()
+                    .filter(team -> team.getName().equals("teamA"))
+                    .findFirst().orElseThrow();
+            memberRepository.save(new Member("member5", 50, teamA));
+            Page<MemberTeamDto> page = memberRepository.searchPageParallel(condition, PageRequest.of(0, 1));
+            status.setRollbackOnly();
+            return page;
+        });
+
+        //then
+        // 다른 커넥션에서 셌다면 커밋하지 않은 member5 가 빠져 2 가 된다
+        assertThat(result.getTotalElements()).isEqualTo(3);
+    }
+}
@@ -1,29 +1,45 @@
 package study.querydsl.repository;
 
 import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
 import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberCursor;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.entity.MemberChangedEvent;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.Team;
+import study.querydsl.sql.SqlCaptureListener;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static study.querydsl.entity.QMember.*;
 
 @SpringBootTest
 @Transactional
+@RecordApplicationEvents
 class MemberRepositoryTest {
 
     @Autowired EntityManager em;
     @Autowired MemberRepository memberRepository;
+    @Autowired MemberCountCache countCache;
+    @Autowired SqlCaptureListener sqlCaptureListener;
+    @Autowired ApplicationEvents events;
 
     @Test
     void basicTest() throws Exception {
@@ -137,6 +153,170 @@ class MemberRepositoryTest {
                 .containsExactly("member1", "member2");
     }
 
+    @Test
+    void searchPageWindow() throws Exception {
+        //given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+
+        Member member3 = new Member("member3", 30, teamB);
+        Member member4 = new Member("member4", 40, teamB);
+
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+
+        //when
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        Page<MemberTeamDto> result = memberRepository.searchPageWindow(condition, PageRequest.of(0, 2));
+        Page<MemberTeamDto> beyondLast = memberRepository.searchPageWindow(condition, PageRequest.of(5, 2));
+
+        //then
+        assertThat(result.getTotalElements()).isEqualTo(3);
+        assertThat(result.getContent()).extracting("username")
+                .containsExactly("member2", "member3");
+        assertThat(result.getContent()).extracting("teamName")
+                .containsExactly("teamA", "teamB");
+        assertThat(beyondLast.getContent()).isEmpty();
+        assertThat(beyondLast.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    void searchPageComplexCountCache() throws Exception {
+        //given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        for (int i = 1; i <= 4; i++) {
+            em.persist(new Member("member" + i, i * 10, teamA));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        PageRequest pageRequest = PageRequest.of(0, 2);
+
+        //when
+        memberRepository.searchPageComplex(condition, pageRequest);
+        long hitCount = countCache.stats().hitCount();
+        Page<MemberTeamDto> cached = memberRepository.searchPageComplex(condition, pageRequest);
+
+        memberRepository.save(new Member("member5", 50, teamA));
+        em.flush();
+        Page<MemberTeamDto> afterSave = memberRepository.searchPageComplex(condition, pageRequest);
+
+        //then
+        assertThat(countCache.stats().hitCount()).isEqualTo(hitCount + 1);
+        assertThat(cached.getTotalElements()).isEqualTo(4);
+        assertThat(afterSave.getTotalElements()).isEqualTo(5);
+    }
+
+    @Test
+    void countCacheInvalidatedByTeamChange() throws Exception {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        countCache.get(condition, () -> 7);
+
+        //when
+        em.persist(new Team("teamA")); // 팀 변경(저장/이름 변경/삭제)은 teamName 조건의 건수를 바꿀 수 있다
+        em.flush();
+
+        //then
+        assertThat(countCache.getIfPresent(condition)).isNull();
+    }
+
+    @Test
+    void searchKeyset() throws Exception {
+        //given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+
+        Member member3 = new Member("member3", 30, teamB);
+        Member member4 = new Member("member4", 40, teamB);
+
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+
+        //when
+        MemberSearchCondition condition = new MemberSearchCondition();
+        Slice<MemberTeamDto> first = memberRepository.searchKeyset(condition, new MemberCursor(), 2);
+
+        MemberTeamDto last = first.getContent().get(first.getNumberOfElements() - 1);
+        MemberCursor cursor = new MemberCursor(last.getAge(), last.getMemberId());
+        Slice<MemberTeamDto> second = memberRepository.searchKeyset(condition, cursor, 2);
+
+        //then
+        assertThat(first.getContent()).extracting("username").containsExactly("member1", "member2");
+        assertThat(first.hasNext()).isTrue();
+        assertThat(second.getContent()).extracting("username").containsExactly("member3", "member4");
+        assertThat(second.hasNext()).isFalse();
+    }
+
+    @Test
+    void searchKeysetSize() throws Exception {
+        //given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        //when
+        Slice<MemberTeamDto> result = memberRepository.searchKeyset(condition, new MemberCursor(), Integer.MAX_VALUE);
+
+        //then
+        assertThat(result.getSize()).isEqualTo(MemberRepositoryImpl.MAX_KEYSET_SIZE);
+        assertThat(result.getContent()).extracting("username").containsExactly("member1");
+        assertThatThrownBy(() -> memberRepository.searchKeyset(condition, new MemberCursor(), 0))
+                .isInstanceOf(InvalidDataAccessApiUsageException.class)
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void bulkInsert() throws Exception {
+        //given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        Member loaded = new Member("loaded", 10, teamA);
+        em.persist(loaded);
+        em.flush();
+
+        //when
+        long inserted = memberRepository.bulkInsert(
+                IntStream.range(0, 250).mapToObj(i -> new Member("bulk" + i, i % 50, teamA)), 100);
+
+        //then
+        assertThat(inserted).isEqualTo(250);
+        assertThat(memberRepository.count()).isEqualTo(251);
+        // 저장한 회원만 준영속으로 만들고 호출한 쪽이 들고 있던 엔티티는 그대로 둔다
+        assertThat(em.contains(teamA)).isTrue();
+        assertThat(em.contains(loaded)).isTrue();
+        assertThat(teamA.getMembers()).filteredOn(member -> em.contains(member)).containsExactly(loaded);
+        // 저장한 회원은 행마다가 아니라 BULK 한 번만 알린다 (PERSIST 는 loaded)
+        assertThat(events.stream(MemberChangedEvent.class)).extracting("type")
+                .containsExactly(MemberChangedEvent.Type.PERSIST, MemberChangedEvent.Type.BULK);
+    }
+
+    @Test
+    void bulkInsertBatchSizeMustBePositive() throws Exception {
+        assertThatThrownBy(() -> memberRepository.bulkInsert(Stream.of(new Member("member1")), 0))
+                .isInstanceOf(InvalidDataAccessApiUsageException.class)
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+    }
+
     @Test
     void queryDslPredicateExecutorTest() throws Exception {
         //given
@@ -164,4 +344,94 @@ class MemberRepositoryTest {
             System.out.println("member = " + member);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void readOnlyQueries() throws Exception {
+        //given
+        em.persist(new Member("member1", 10));
+        em.persist(new Member("member2", 20));
+        em.flush();
+        em.clear();
+
+        //when
+        List<Member> byUsername = memberRepository.findReadOnlyByUsername("member1");
+        List<Member> byPredicate = memberRepository.findAllReadOnly(member.username.eq("member2"));
+
+        //then
+        Session session = em.unwrap(Session.class);
+        assertThat(session.isReadOnly(byUsername.get(0))).isTrue();
+        assertThat(byPredicate).hasSize(1).allMatch(session::isReadOnly);
+    }
+
+    @Test
+    void existingQueriesStayWritable() throws Exception {
+        //given
+        em.persist(new Member("member1", 10));
+        em.persist(new Member("member2", 20));
+        em.flush();
+        em.clear();
+
+        //when
+        List<Member> byUsername = memberRepository.findByUsername("member1");
+        Iterable<Member> byPredicate = memberRepository.findAll(member.username.eq("member2"));
+
+        //then
+        Session session = em.unwrap(Session.class);
+        assertThat(session.isReadOnly(byUsername.get(0))).isFalse();
+        assertThat(byPredicate).noneMatch(session::isReadOnly);
+    }
+
+    @Test
+    void searchMultiValue() throws Exception {
+        //given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        Team teamC = new Team("teamC");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(teamC);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamB);
+        Member member3 = new Member("member3", 30, teamC);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(new Member("member4", 40));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamNames(List.of("teamA", "teamB", "teamC"));
+        condition.setUsernames(List.of("member1", "member3", "member4", " "));
+        condition.setMemberIds(List.of(member3.getId(), member1.getId(), member2.getId()));
+
+        //when
+        List<Page<MemberTeamDto>> result = new ArrayList<>();
+        List<String> statements = sqlCaptureListener.capture(
+                () -> result.add(memberRepository.searchPageComplex(condition, PageRequest.of(0, 10))));
+
+        //then
+        assertThat(result.get(0).getContent()).extracting("username").containsExactlyInAnyOrder("member1", "member3");
+        // in 목록 3개는 4개로 채워진다 (마지막 값을 반복)
+        assertThat(statements).anyMatch(sql -> sql.replaceAll("\\s", "").contains("'teamC','teamC')"));
+    }
+
+    @Test
+    void searchPageSimpleNormalizesCondition() throws Exception {
+        //given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamNames(List.of(" teamA "));
+        condition.setUsernames(List.of("member1 ", " "));
+
+        //when
+        Page<MemberTeamDto> result = memberRepository.searchPageSimple(condition, PageRequest.of(0, 10));
+
+        //then
+        // 다른 검색 경로와 같이 앞뒤 공백과 빈 값을 정리한 조건으로 찾는다
+        assertThat(result.getContent()).extracting("username").containsExactly("member1");
+    }
+}
@@ -0,0 +1,129 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.sql.SqlCaptureListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberSearchPlannerTest {
+
+    @Autowired EntityManager em;
+    @Autowired MemberRepository memberRepository;
+    @Autowired SqlCaptureListener sqlCaptureListener;
+    @Autowired MeterRegistry registry;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamA));
+        em.flush();
+    }
+
+    @Test
+    void contradictoryAgeRange() throws Exception {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(30);
+        condition.setAgeLoe(20);
+        double skipped = skippedQueries();
+
+        //when
+        List<Page<MemberTeamDto>> result = new ArrayList<>();
+        List<String> statements = sqlCaptureListener.capture(
+                () -> result.add(memberRepository.searchPageComplex(condition, PageRequest.of(0, 10))));
+
+        //then
+        assertThat(statements).isEmpty();
+        assertThat(result.get(0).getContent()).isEmpty();
+        assertThat(result.get(0).getTotalElements()).isZero();
+        assertThat(skippedQueries()).isEqualTo(skipped + 2);
+    }
+
+    @Test
+    void trimmedCondition() throws Exception {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(" member1 ");
+        condition.setTeamName("teamA\t");
+
+        //when
+        List<MemberTeamDto> result = memberRepository.search(condition);
+
+        //then
+        assertThat(result).extracting("username").containsExactly("member1");
+    }
+
+    @Test
+    void countWithoutTeamJoin() throws Exception {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(10);
+
+        //when
+        List<String> statements = sqlCaptureListener.capture(
+                () -> memberRepository.searchPageComplex(condition, PageRequest.of(0, 2)));
+
+        //then
+        String countSql = statements.get(1).toLowerCase(Locale.ROOT);
+        assertThat(countSql).contains("count(").doesNotContain("join");
+    }
+
+    @Test
+    void countWithTeamNameUsesTeamIds() throws Exception {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        //when
+        List<Page<MemberTeamDto>> result = new ArrayList<>();
+        List<String> statements = sqlCaptureListener.capture(
+                () -> result.add(memberRepository.searchPageComplex(condition, PageRequest.of(0, 2))));
+
+        //then
+        assertThat(result.get(0).getTotalElements()).isEqualTo(3);
+        String countSql = statements.stream()
+                .map(sql -> sql.toLowerCase(Locale.ROOT))
+                .filter(sql -> sql.contains("count("))
+                .findFirst().orElseThrow();
+        assertThat(countSql).contains("team_id in").doesNotContain("join");
+    }
+
+    @Test
+    void countWithUnknownTeamName() throws Exception {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setTeamNames(List.of("teamB"));
+
+        //when
+        Page<MemberTeamDto> result = memberRepository.searchPageComplex(condition, PageRequest.of(1, 2));
+
+        //then
+        assertThat(result.getTotalElements()).isZero();
+    }
+
+    private double skippedQueries() {
+        return registry.counter("member.search.planner.skipped.queries", "method", "complex").count();
+    }
+}
@@ -0,0 +1,113 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberSearchQueryCacheTest {
+
+    @Autowired EntityManager em;
+    @Autowired MemberSearchQueryCache searchQueryCache;
+    @Autowired MemberJpaRepository memberJpaRepository;
+
+    List<Long> memberIds;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30, teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(new Member("member4", 40, teamB));
+
+        memberIds = List.of(member1.getId(), member2.getId(), member3.getId());
+    }
+
+    @Test
+    void sameResultAsQueryDslForEveryShape() throws Exception {
+        for (int shape = 0; shape < MemberSearchQueryCache.SHAPES; shape++) {
+            //given
+            MemberSearchCondition condition = conditionOf(shape);
+
+            //when
+            List<MemberTeamDto> cached = searchQueryCache.search(condition);
+            List<MemberTeamDto> built = memberJpaRepository.searchByBuilder(condition);
+
+            //then
+            assertThat(MemberSearchQueryCache.shapeOf(condition)).isEqualTo(shape);
+            assertThat(cached).containsExactlyInAnyOrderElementsOf(built);
+        }
+    }
+
+    @Test
+    void reuseQueryForSameShape() throws Exception {
+        //given
+        MemberSearchCondition first = new MemberSearchCondition();
+        first.setTeamName("teamA");
+        MemberSearchCondition second = new MemberSearchCondition();
+        second.setTeamName("teamB");
+
+        //when
+        searchQueryCache.search(first);
+        long hits = searchQueryCache.hitCount();
+        long misses = searchQueryCache.missCount();
+        List<MemberTeamDto> result = searchQueryCache.search(second);
+
+        //then
+        assertThat(searchQueryCache.hitCount()).isEqualTo(hits + 1);
+        assertThat(searchQueryCache.missCount()).isEqualTo(misses);
+        assertThat(result).extracting("username").containsExactlyInAnyOrder("member3", "member4");
+    }
+
+    private MemberSearchCondition conditionOf(int shape) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        if ((shape & MemberSearchQueryCache.USERNAME) != 0) {
+            condition.setUsername("member2");
+        }
+        if ((shape & MemberSearchQueryCache.TEAM_NAME) != 0) {
+            condition.setTeamName("teamA");
+        }
+        if ((shape & MemberSearchQueryCache.AGE_GOE) != 0) {
+            condition.setAgeGoe(15);
+        }
+        if ((shape & MemberSearchQueryCache.AGE_LOE) != 0) {
+            condition.setAgeLoe(35);
+        }
+        if ((shape & MemberSearchQueryCache.USERNAME_PREFIX) != 0) {
+            condition.setUsernamePrefix("member");
+        }
+        if ((shape & MemberSearchQueryCache.USERNAME_CONTAINS) != 0) {
+            condition.setUsernameContains("ber");
+        }
+        if ((shape & MemberSearchQueryCache.MEMBER_IDS) != 0) {
+            condition.setMemberIds(memberIds);
+        }
+        if ((shape & MemberSearchQueryCache.USERNAMES) != 0) {
+            condition.setUsernames(List.of("member1", "member2"));
+        }
+        if ((shape & MemberSearchQueryCache.TEAM_NAMES) != 0) {
+            condition.setTeamNames(List.of("teamA", "teamB"));
+        }
+        return condition;
+    }
+}
@@ -0,0 +1,103 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.CommittedDataCleaner;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.sql.SqlCaptureListener;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 쓰기 트랜잭션 안에서는 캐시를 쓰지 않으므로 테스트 데이터를 커밋하고 끝나면 지운다.
+ */
+@SpringBootTest
+class MemberSearchResultCacheTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+    @Autowired MemberSearchResultCache resultCache;
+    @Autowired SqlCaptureListener sqlCaptureListener;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired CommittedDataCleaner committedDataCleaner;
+
+    Team teamA;
+
+    @BeforeEach
+    void before() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            teamA = teamRepository.save(new Team("teamA"));
+            memberRepository.save(new Member("member1", 10, teamA));
+            memberRepository.save(new Member("member2", 20, teamA));
+        });
+    }
+
+    @AfterEach
+    void after() {
+        committedDataCleaner.clean();
+    }
+
+    @Test
+    void cacheHit() throws Exception {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        MemberSearchCondition blankUsername = new MemberSearchCondition();
+        blankUsername.setTeamName("teamA");
+        blankUsername.setUsername(" "); // 정규화하면 같은 키
+        memberRepository.searchPageWindow(condition, PageRequest.of(0, 10));
+        long hitCount = resultCache.stats().hitCount();
+
+        //when
+        List<String> statements = sqlCaptureListener.capture(
+                () -> memberRepository.searchPageWindow(blankUsername, PageRequest.of(0, 10)));
+
+        //then
+        assertThat(statements).isEmpty();
+        assertThat(resultCache.stats().hitCount()).isEqualTo(hitCount + 1);
+    }
+
+    @Test
+    void invalidatedAfterCommit() throws Exception {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        memberRepository.searchPageWindow(condition, PageRequest.of(0, 10));
+
+        //when
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                memberRepository.save(new Member("member3", 30, teamA)));
+        Page<MemberTeamDto> result = memberRepository.searchPageWindow(condition, PageRequest.of(0, 10));
+
+        //then
+        assertThat(result.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+    }
+
+    @Test
+    void bypassedInReadWriteTransaction() throws Exception {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        memberRepository.search(condition);
+
+        //when
+        List<MemberTeamDto> result = new TransactionTemplate(transactionManager).execute(status -> {
+            memberRepository.save(new Member("member3", 30, teamA));
+            return memberRepository.search(condition); // 커밋 전 변경이 보여야 한다
+        });
+
+        //then
+        assertThat(result).hasSize(3);
+    }
+}
@@ -0,0 +1,119 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.sql.SqlCaptureListener;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class TeamRepositoryTest {
+
+    @Autowired EntityManager em;
+    @Autowired EntityManagerFactory emf;
+    @Autowired TeamRepository teamRepository;
+    @Autowired SqlCaptureListener sqlCaptureListener;
+
+    @Test
+    void secondLevelCache() throws Exception {
+        //given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        Member member1 = new Member("member1", 10, teamA);
+        em.persist(member1);
+        em.flush();
+        em.clear();
+
+        CacheRegionStatistics stats = emf.unwrap(SessionFactory.class)
+                .getStatistics()
+                .getDomainDataRegionStatistics("team");
+
+        //when
+        em.find(Team.class, teamA.getId()); // DB 조회 후 캐시에 저장
+        em.clear();
+        long hitCount = stats.getHitCount();
+
+        Member findMember = em.find(Member.class, member1.getId());
+        String teamName = findMember.getTeam().getName(); // 지연 로딩이 캐시에서 해결
+
+        //then
+        assertThat(teamName).isEqualTo("teamA");
+        assertThat(stats.getHitCount()).isEqualTo(hitCount + 1);
+    }
+
+    @Test
+    void findIdsByName() throws Exception {
+        //given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        //when
+        List<Long> ids = teamRepository.findIdsByName("teamB");
+
+        //then
+        assertThat(ids).containsExactly(teamB.getId());
+    }
+
+    @Test
+    void batchFetch() throws Exception {
+        //given
+        persistTeams(3, 2);
+        em.flush();
+        em.clear();
+
+        //when
+        List<String> statements = sqlCaptureListener.capture(() -> {
+            List<Member> members = em.createQuery("select m from Member m", Member.class).getResultList();
+            members.forEach(m -> m.getTeam().getName()); // 팀 3개를 in 쿼리 한 번으로
+            members.get(0).getTeam().getMembers().size();
+        });
+
+        //then
+        assertThat(statements).hasSize(3); // member, team 배치, members 배치
+    }
+
+    @Test
+    void findTeamsWithMembers() throws Exception {
+        //given
+        persistTeams(3, 2);
+        em.flush();
+        em.clear();
+
+        //when
+        List<String> statements = sqlCaptureListener.capture(() -> {
+            List<Team> teams = teamRepository.findTeamsWithMembers(PageRequest.of(0, 2));
+            assertThat(teams).extracting("name").containsExactly("team0", "team1");
+            for (Team team : teams) {
+                assertThat(team.getMembers()).hasSize(2);
+                team.getMembers().forEach(m -> m.getTeam().getName());
+            }
+        });
+
+        //then
+        assertThat(statements).hasSize(2);
+    }
+
+    private void persistTeams(int teamCount, int membersPerTeam) {
+        for (int i = 0; i < teamCount; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            for (int j = 0; j < membersPerTeam; j++) {
+                em.persist(new Member("member" + i + "_" + j, 10 + j, team));
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package study.querydsl.sql;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 검색 조건 16가지 모양마다 실제 SQL 의 실행 계획이 인덱스를 타는지 확인한다.
+ * 조건이 하나도 없는 모양(0)은 전체 조회라 제외.
+ */
+@SpringBootTest
+@Transactional
+class MemberSearchExplainTest {
+
+    static final int USERNAME = 1;
+    static final int TEAM_NAME = 1 << 1;
+    static final int AGE_GOE = 1 << 2;
+    static final int AGE_LOE = 1 << 3;
+
+    @Autowired EntityManager em;
+    @Autowired QueryPlanExplainer explainer;
+    @Autowired SqlCaptureListener sqlCaptureListener;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        for (int i = 0; i < 200; i++) {
+            em.persist(new Member("member" + i, i % 100, i % 2 == 0 ? teamA : teamB));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    static IntStream shapes() {
+        return IntStream.range(1, 16);
+    }
+
+    @ParameterizedTest
+    @MethodSource("shapes")
+    void searchUsesIndex(int shape) throws Exception {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        if ((shape & USERNAME) != 0) {
+            condition.setUsername("member1");
+        }
+        if ((shape & TEAM_NAME) != 0) {
+            condition.setTeamName("teamA");
+        }
+        if ((shape & AGE_GOE) != 0) {
+            condition.setAgeGoe(10);
+        }
+        if ((shape & AGE_LOE) != 0) {
+            condition.setAgeLoe(20);
+        }
+
+        //when
+        List<String> plans = explainer.explainSearch(condition);
+
+        //then
+        assertThat(plans).hasSize(1);
+        String plan = plans.get(0);
+        if ((shape & ~TEAM_NAME) != 0) {
+            assertThat(plan).doesNotContain("MEMBER.tableScan");
+        } else {
+            // 팀 이름만 있으면 left join 이라 member 는 전체를 읽고, team 쪽은 인덱스로 찾아야 한다
+            assertThat(plan).doesNotContain("TEAM.tableScan");
+        }
+    }
+
+    @Test
+    void explainDoesNotRunSearch() throws Exception {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member1");
+        condition.setTeamName("teamA");
+
+        //when
+        List<String> statements = sqlCaptureListener.capture(() -> explainer.explainSearch(condition));
+
+        //then
+        assertThat(statements).isNotEmpty();
+        assertThat(statements).allSatisfy(sql -> assertThat(sql.strip()).startsWithIgnoringCase("explain"));
+    }
+}
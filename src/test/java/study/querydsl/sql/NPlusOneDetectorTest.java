@@ -0,0 +1,68 @@
+package study.querydsl.sql;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {"nplusone.threshold=3", "nplusone.fail-on-detection=true"})
+@Transactional
+class NPlusOneDetectorTest {
+
+    @Autowired EntityManager em;
+    @Autowired MemberJpaRepository memberJpaRepository;
+
+    @Test
+    void failWhenLazyLoadRepeats() throws Exception {
+        //given
+        List<Long> teamIds = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            em.persist(new Member("member" + i, i * 10, team));
+            teamIds.add(team.getId());
+        }
+        em.flush();
+
+        //when
+        // 팀을 하나씩 읽어서 배치 페치로 묶이지 않게 한다
+        initializeMembers(teamIds.get(0));
+        initializeMembers(teamIds.get(1));
+
+        //then
+        assertThatThrownBy(() -> initializeMembers(teamIds.get(2)))
+                .isInstanceOf(NPlusOneQueryException.class);
+    }
+
+    @Test
+    void repeatedQueriesAreFine() throws Exception {
+        //given
+        for (int i = 1; i <= 3; i++) {
+            em.persist(new Member("member" + i, i * 10));
+        }
+        em.flush();
+
+        //when, then
+        // 코드가 직접 반복하는 쿼리는 지연 로딩이 아니므로 세지 않는다
+        assertThatCode(() -> {
+            for (int i = 1; i <= 3; i++) {
+                memberJpaRepository.findByUsername("member" + i);
+            }
+        }).doesNotThrowAnyException();
+    }
+
+    private void initializeMembers(Long teamId) {
+        em.clear();
+        em.find(Team.class, teamId).getMembers().size();
+    }
+}
@@ -0,0 +1,26 @@
+package study.querydsl.sql;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlFingerprintTest {
+
+    @Test
+    void stripLiterals() throws Exception {
+        String first = SqlFingerprint.of("select m1_0.member_id from member m1_0 where m1_0.username='member1' and m1_0.age>=10");
+        String second = SqlFingerprint.of("SELECT m1_0.member_id FROM member m1_0\n  WHERE m1_0.username = 'o''neil' AND m1_0.age >= 25.5");
+
+        assertThat(first).isEqualTo("select m1_0.member_id from member m1_0 where m1_0.username=? and m1_0.age>=?");
+        assertThat(second).isEqualTo("select m1_0.member_id from member m1_0 where m1_0.username = ? and m1_0.age >= ?");
+    }
+
+    @Test
+    void collapseInList() throws Exception {
+        String three = SqlFingerprint.of("select * from member where member_id in (?, ?, ?)");
+        String five = SqlFingerprint.of("select * from member where member_id in (1,2,3,4,5)");
+
+        assertThat(three).isEqualTo("select * from member where member_id in (?+)");
+        assertThat(five).isEqualTo(three);
+    }
+}
@@ -0,0 +1,42 @@
+package study.querydsl.sql;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberJpaRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class SqlStatementAggregatorTest {
+
+    @Autowired EntityManager em;
+    @Autowired MemberJpaRepository memberJpaRepository;
+    @Autowired SqlStatementAggregator aggregator;
+
+    @Test
+    void aggregateByFingerprint() throws Exception {
+        //given
+        em.persist(new Member("member1", 10));
+        em.persist(new Member("member2", 20));
+        em.flush();
+        aggregator.reset();
+
+        //when
+        memberJpaRepository.findByUsername("member1");
+        memberJpaRepository.findByUsername("member2");
+        memberJpaRepository.findByUsername("member3");
+
+        //then
+        List<SqlStatementStats> top = aggregator.top(10);
+        assertThat(top).hasSize(1);
+        assertThat(top.get(0).getCount()).isEqualTo(3);
+        assertThat(top.get(0).getFingerprint()).contains("username=?");
+    }
+}